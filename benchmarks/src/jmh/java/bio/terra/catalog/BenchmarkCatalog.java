@@ -0,0 +1,55 @@
+package bio.terra.catalog;
+
+import bio.terra.catalog.common.StorageSystem;
+import bio.terra.catalog.service.dataset.Dataset;
+import bio.terra.catalog.service.dataset.DatasetId;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/** Synthetic catalogs for benchmarks, built from the example catalog entry. */
+public final class BenchmarkCatalog {
+  public static final String EXAMPLE_PATH = "schema/development/example.json";
+  public static final String SCHEMA_PATH = "schema/development/schema.json";
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private BenchmarkCatalog() {}
+
+  public static ObjectMapper objectMapper() {
+    return objectMapper;
+  }
+
+  /** The example catalog entry, which has realistic metadata that's valid against the schema. */
+  public static ObjectNode exampleMetadata() {
+    try (var input = BenchmarkCatalog.class.getClassLoader().getResourceAsStream(EXAMPLE_PATH)) {
+      return objectMapper.readValue(input, ObjectNode.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Create a catalog of entries that each have a copy of the example metadata with a unique title,
+   * spread across the storage systems.
+   */
+  public static List<Dataset> datasets(int size) {
+    var metadata = exampleMetadata();
+    var systems = StorageSystem.values();
+    return IntStream.range(0, size)
+        .mapToObj(
+            i ->
+                new Dataset(
+                    new DatasetId(UUID.randomUUID()),
+                    UUID.randomUUID().toString(),
+                    systems[i % systems.length],
+                    metadata.deepCopy().put("dct:title", "dataset " + i),
+                    Instant.EPOCH.plusSeconds(i)))
+        .toList();
+  }
+}
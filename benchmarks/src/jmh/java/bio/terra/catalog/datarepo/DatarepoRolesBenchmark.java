@@ -0,0 +1,49 @@
+package bio.terra.catalog.datarepo;
+
+import bio.terra.catalog.service.dataset.DatasetAccessLevel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Finding the access level of every snapshot in a listing from the user's TDR roles. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatarepoRolesBenchmark {
+  private static final List<List<String>> ROLE_LISTS =
+      List.of(
+          List.of(DatarepoService.DISCOVERER_ROLE_NAME),
+          List.of(DatarepoService.READER_ROLE_NAME, DatarepoService.DISCOVERER_ROLE_NAME),
+          List.of(DatarepoService.STEWARD_ROLE_NAME, "custodian"),
+          List.of("snapshot_creator"));
+
+  @Param({"100", "10000", "100000"})
+  private int catalogSize;
+
+  private List<List<String>> snapshotRoles;
+
+  @Setup
+  public void setup() {
+    snapshotRoles =
+        IntStream.range(0, catalogSize)
+            .mapToObj(i -> ROLE_LISTS.get(i % ROLE_LISTS.size()))
+            .toList();
+  }
+
+  @Benchmark
+  public void getHighestAccessFromRoleList(Blackhole blackhole) {
+    for (List<String> roles : snapshotRoles) {
+      DatasetAccessLevel accessLevel = DatarepoService.getHighestAccessFromRoleList(roles);
+      blackhole.consume(accessLevel);
+    }
+  }
+}
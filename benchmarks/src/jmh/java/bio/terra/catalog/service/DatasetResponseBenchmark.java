@@ -0,0 +1,58 @@
+package bio.terra.catalog.service;
+
+import bio.terra.catalog.BenchmarkCatalog;
+import bio.terra.catalog.common.StorageSystemInformation;
+import bio.terra.catalog.service.dataset.Dataset;
+import bio.terra.catalog.service.dataset.DatasetAccessLevel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Converting a catalog to a dataset listing, as a list of nodes and streamed to a response. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatasetResponseBenchmark {
+  private static final StorageSystemInformation INFORMATION =
+      new StorageSystemInformation(DatasetAccessLevel.READER, "phs000001");
+
+  @Param({"100", "10000", "100000"})
+  private int catalogSize;
+
+  private List<Dataset> datasets;
+
+  @Setup
+  public void setup() {
+    datasets = BenchmarkCatalog.datasets(catalogSize);
+  }
+
+  @Benchmark
+  public void convertToObject(Blackhole blackhole) {
+    for (Dataset dataset : datasets) {
+      blackhole.consume(
+          new DatasetService.DatasetResponse(dataset, INFORMATION, false).convertToObject());
+    }
+  }
+
+  @Benchmark
+  public void writeListing() throws IOException {
+    try (var generator =
+        BenchmarkCatalog.objectMapper().createGenerator(OutputStream.nullOutputStream())) {
+      generator.writeStartArray();
+      for (Dataset dataset : datasets) {
+        DatasetJsonWriter.write(generator, dataset, INFORMATION);
+      }
+      generator.writeEndArray();
+    }
+  }
+}
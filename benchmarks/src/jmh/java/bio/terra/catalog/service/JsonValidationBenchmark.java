@@ -0,0 +1,36 @@
+package bio.terra.catalog.service;
+
+import bio.terra.catalog.BenchmarkCatalog;
+import bio.terra.catalog.config.SchemaConfiguration;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.ValidationMessage;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Validating one catalog entry against the development schema, as every write does. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonValidationBenchmark {
+  private JsonValidationService jsonValidationService;
+  private ObjectNode metadata;
+
+  @Setup
+  public void setup() {
+    jsonValidationService =
+        new JsonValidationService(new SchemaConfiguration(BenchmarkCatalog.SCHEMA_PATH));
+    metadata = BenchmarkCatalog.exampleMetadata();
+  }
+
+  @Benchmark
+  public Set<ValidationMessage> validate() {
+    return jsonValidationService.validate(metadata);
+  }
+}
@@ -0,0 +1,84 @@
+package bio.terra.catalog.service.dataset;
+
+import bio.terra.catalog.BenchmarkCatalog;
+import bio.terra.catalog.common.StorageSystem;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+/**
+ * Parsing the metadata of catalog rows, and building the query that finds a user's catalog
+ * entries. Queries aren't sent to a database, so only the work done in the service is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatasetDaoBenchmark {
+  @Param({"100", "10000", "100000"})
+  private int catalogSize;
+
+  private DatasetDao datasetDao;
+  private List<String> metadataRows;
+  private Map<StorageSystem, Collection<String>> systemsAndIds;
+
+  /** A template that returns no rows, and keeps the query it would have sent. */
+  private static class NoDatabaseJdbcTemplate extends NamedParameterJdbcTemplate {
+    private String sql;
+    private SqlParameterSource params;
+
+    NoDatabaseJdbcTemplate() {
+      super(new JdbcTemplate(new SimpleDriverDataSource()));
+    }
+
+    @Override
+    public <T> List<T> query(String sql, SqlParameterSource params, RowMapper<T> rowMapper) {
+      this.sql = sql;
+      this.params = params;
+      return List.of();
+    }
+  }
+
+  @Setup
+  public void setup() {
+    datasetDao = new DatasetDao(new NoDatabaseJdbcTemplate(), BenchmarkCatalog.objectMapper());
+    var datasets = BenchmarkCatalog.datasets(catalogSize);
+    metadataRows = datasets.stream().map(dataset -> dataset.metadata().toString()).toList();
+    systemsAndIds =
+        datasets.stream()
+            .collect(
+                Collectors.groupingBy(
+                    Dataset::storageSystem,
+                    Collectors.mapping(
+                        Dataset::storageSourceId,
+                        Collectors.<String, Collection<String>>toCollection(ArrayList::new))));
+  }
+
+  @Benchmark
+  public void toJsonNode(Blackhole blackhole) {
+    for (String metadata : metadataRows) {
+      blackhole.consume(datasetDao.toJsonNode(metadata));
+    }
+  }
+
+  @Benchmark
+  public List<Dataset> find() {
+    return datasetDao.find(systemsAndIds);
+  }
+}
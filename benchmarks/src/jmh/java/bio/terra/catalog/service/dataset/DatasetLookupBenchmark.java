@@ -0,0 +1,170 @@
+package bio.terra.catalog.service.dataset;
+
+import bio.terra.catalog.BenchmarkCatalog;
+import bio.terra.catalog.common.StorageSystem;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Finding a user's catalog entries by storage source ID, comparing the lookup that binds each
+ * storage system's IDs as an array with the lookups it replaced: one placeholder per ID, and
+ * reading every entry of the requested storage systems and intersecting them with the IDs in
+ * memory.
+ *
+ * <p>Unlike the other benchmarks, this one needs the local catalog database, configured the same
+ * as for the DAO tests, with its schema up to date. The catalog is written to a temporary table
+ * that hides the dataset table for the benchmark's connection, so the database is left unchanged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatasetLookupBenchmark {
+  // Large enough that reading a whole storage system's entries isn't free.
+  private static final int CATALOG_SIZE = 10_000;
+
+  @Param({"10", "1000", "50000"})
+  private int idCount;
+
+  private SingleConnectionDataSource dataSource;
+  private NamedParameterJdbcTemplate jdbcTemplate;
+  private DatasetDao datasetDao;
+  private Map<StorageSystem, Collection<String>> systemsAndIds;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    dataSource =
+        new SingleConnectionDataSource(
+            "jdbc:postgresql://%s:5432/%s"
+                .formatted(
+                    env("DATABASE_HOSTNAME", "127.0.0.1"), env("DATABASE_NAME", "catalog_db")),
+            env("DATABASE_USER", "dbuser"),
+            env("DATABASE_USER_PASSWORD", "dbpwd"),
+            true);
+    jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    datasetDao = new DatasetDao(jdbcTemplate, BenchmarkCatalog.objectMapper());
+
+    // Temporary tables are searched before the public schema, so this hides the dataset table.
+    jdbcTemplate
+        .getJdbcTemplate()
+        .execute("CREATE TEMPORARY TABLE dataset (LIKE public.dataset INCLUDING ALL)");
+    var catalog = BenchmarkCatalog.datasets(CATALOG_SIZE);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO dataset (id, storage_source_id, storage_system, metadata) "
+            + "VALUES (:id, :storage_source_id, :storage_system, cast(:metadata as jsonb))",
+        catalog.stream()
+            .map(
+                dataset ->
+                    new MapSqlParameterSource()
+                        .addValue("id", dataset.id().uuid())
+                        .addValue("storage_source_id", dataset.storageSourceId())
+                        .addValue("storage_system", String.valueOf(dataset.storageSystem()))
+                        .addValue("metadata", dataset.metadata().toString()))
+            .toArray(MapSqlParameterSource[]::new));
+    jdbcTemplate.getJdbcTemplate().execute("ANALYZE dataset");
+
+    // A user can access at most part of the catalog, and many more resources that aren't in it.
+    systemsAndIds = new HashMap<>();
+    catalog.stream()
+        .limit(idCount / 2)
+        .forEach(
+            dataset ->
+                systemsAndIds
+                    .computeIfAbsent(dataset.storageSystem(), system -> new ArrayList<>())
+                    .add(dataset.storageSourceId()));
+    var systems = StorageSystem.values();
+    IntStream.range(idCount / 2, idCount)
+        .forEach(
+            i ->
+                systemsAndIds
+                    .computeIfAbsent(systems[i % systems.length], system -> new ArrayList<>())
+                    .add(UUID.randomUUID().toString()));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.destroy();
+  }
+
+  private static String env(String name, String defaultValue) {
+    return System.getenv().getOrDefault(name, defaultValue);
+  }
+
+  @Benchmark
+  public List<Dataset> arrayParameters() {
+    return datasetDao.find(systemsAndIds);
+  }
+
+  /** The lookup before the IDs were bound as arrays, with one placeholder per ID. */
+  @Benchmark
+  public List<Dataset> placeholders() {
+    List<Object> args = new ArrayList<>();
+    String whereClause =
+        systemsAndIds.entrySet().stream()
+            .map(
+                entry -> {
+                  args.add(String.valueOf(entry.getKey()));
+                  args.addAll(entry.getValue());
+                  return "(storage_system = ? AND storage_source_id IN (%s))"
+                      .formatted(
+                          Stream.generate(() -> "?")
+                              .limit(entry.getValue().size())
+                              .collect(Collectors.joining(", ")));
+                })
+            .collect(Collectors.joining(" OR "));
+    return jdbcTemplate
+        .getJdbcTemplate()
+        .query("SELECT * FROM dataset WHERE " + whereClause, this::mapRow, args.toArray());
+  }
+
+  /** Read every entry of the requested storage systems and keep those with the requested IDs. */
+  @Benchmark
+  public List<Dataset> inMemory() {
+    Map<StorageSystem, Set<String>> idSets =
+        systemsAndIds.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> Set.copyOf(entry.getValue())));
+    var params =
+        new MapSqlParameterSource(
+            "storage_system", idSets.keySet().stream().map(String::valueOf).toList());
+    return jdbcTemplate
+        .query(
+            "SELECT * FROM dataset WHERE storage_system IN (:storage_system)",
+            params,
+            this::mapRow)
+        .stream()
+        .filter(dataset -> idSets.get(dataset.storageSystem()).contains(dataset.storageSourceId()))
+        .toList();
+  }
+
+  private Dataset mapRow(ResultSet rs, int rowNum) throws SQLException {
+    return new Dataset(
+        new DatasetId(rs.getObject("id", UUID.class)),
+        rs.getString("storage_source_id"),
+        StorageSystem.valueOf(rs.getString("storage_system")),
+        datasetDao.toJsonNode(rs.getString("metadata")),
+        rs.getTimestamp("created_date").toInstant());
+  }
+}
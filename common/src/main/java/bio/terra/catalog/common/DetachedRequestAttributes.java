@@ -0,0 +1,121 @@
+package bio.terra.catalog.common;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * A copy of the current request's request scope attributes that can outlive the request.
+ *
+ * <p>Spring request scope beans, such as the user's {@code BearerToken}, can't be used from another
+ * thread once the request that created them has completed. Work that continues after the response
+ * is sent can capture the attributes while the request is active, and then run with the captured
+ * copy installed on its own thread.
+ *
+ * <p>Only beans that were already created during the request are captured. A request scope bean
+ * that is first used inside the detached work can't be created, because there is no servlet
+ * request to create it from.
+ *
+ * <p>Only request scope attributes are kept. There is no session: session scope attributes are
+ * never found and can't be set, and the session ID is a synthetic ID that identifies this copy, so
+ * that code that logs or audits the session still works.
+ *
+ * @see RequestContextHolder
+ */
+public class DetachedRequestAttributes implements RequestAttributes {
+
+  private static final String SESSION_ID_PREFIX = "detached-";
+
+  private final Map<String, Object> attributes;
+  private final String sessionId = SESSION_ID_PREFIX + UUID.randomUUID();
+
+  private DetachedRequestAttributes(Map<String, Object> attributes) {
+    this.attributes = attributes;
+  }
+
+  /**
+   * Copy the request scope attributes of the current thread's request. If there is no current
+   * request, the returned copy is empty.
+   *
+   * @return the detached copy of the request attributes
+   */
+  public static DetachedRequestAttributes capture() {
+    Map<String, Object> attributes = new ConcurrentHashMap<>();
+    RequestAttributes current = RequestContextHolder.getRequestAttributes();
+    if (current != null) {
+      for (String name : current.getAttributeNames(SCOPE_REQUEST)) {
+        Object value = current.getAttribute(name, SCOPE_REQUEST);
+        if (value != null) {
+          attributes.put(name, value);
+        }
+      }
+    }
+    return new DetachedRequestAttributes(attributes);
+  }
+
+  /**
+   * Run a task on the current thread with these attributes installed as the thread's request
+   * attributes. The thread's previous request attributes are restored when the task completes.
+   *
+   * @param task the task to run
+   */
+  public void run(Runnable task) {
+    RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+    RequestContextHolder.setRequestAttributes(this);
+    try {
+      task.run();
+    } finally {
+      if (previous == null) {
+        RequestContextHolder.resetRequestAttributes();
+      } else {
+        RequestContextHolder.setRequestAttributes(previous);
+      }
+    }
+  }
+
+  @Override
+  public Object getAttribute(String name, int scope) {
+    return scope == SCOPE_REQUEST ? attributes.get(name) : null;
+  }
+
+  @Override
+  public void setAttribute(String name, Object value, int scope) {
+    if (scope == SCOPE_REQUEST) {
+      attributes.put(name, value);
+    }
+  }
+
+  @Override
+  public void removeAttribute(String name, int scope) {
+    if (scope == SCOPE_REQUEST) {
+      attributes.remove(name);
+    }
+  }
+
+  @Override
+  public String[] getAttributeNames(int scope) {
+    return scope == SCOPE_REQUEST ? attributes.keySet().toArray(String[]::new) : new String[0];
+  }
+
+  @Override
+  public void registerDestructionCallback(String name, Runnable callback, int scope) {
+    // The captured beans belong to the original request, which is responsible for destroying them.
+  }
+
+  @Override
+  public Object resolveReference(String key) {
+    return null;
+  }
+
+  @Override
+  public String getSessionId() {
+    return sessionId;
+  }
+
+  @Override
+  public Object getSessionMutex() {
+    return this;
+  }
+}
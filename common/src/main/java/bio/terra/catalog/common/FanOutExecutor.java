@@ -0,0 +1,325 @@
+package bio.terra.catalog.common;
+
+import bio.terra.catalog.config.FanOutConfiguration;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Runs calls to several storage systems concurrently, such as a request's dataset listing or the
+ * periodic status check.
+ *
+ * <p>Calls run on a dedicated, bounded pool of threads, so they don't compete with other work in
+ * the JVM. When all the threads are busy and the queue is full, the calling thread makes the call
+ * itself.
+ *
+ * <p>The calling thread's request attributes are installed on the thread that makes each call, so
+ * that request scope beans such as the user's {@code BearerToken} can be used, and that thread's
+ * own attributes are restored when the call completes. Each call has its own deadline, measured
+ * from when it's submitted: a call that hasn't completed by then is cancelled, whether or not the
+ * caller is waiting for it yet.
+ *
+ * <p>A call may itself call {@link #map}. Its calls that are still waiting for a thread when their
+ * results are needed are made by the calling thread, so calls can't wait forever for threads held
+ * by their callers.
+ */
+@Component
+public class FanOutExecutor {
+  private static final Logger logger = LoggerFactory.getLogger(FanOutExecutor.class);
+
+  static final String METRIC_NAME = "catalog.fan-out";
+  static final String REJECTED_METRIC = METRIC_NAME + ".rejected";
+  static final String TIMEOUTS_METRIC = METRIC_NAME + ".timeouts";
+
+  // Used when the configuration doesn't set a value.
+  private static final int DEFAULT_THREADS = 16;
+  private static final int DEFAULT_QUEUE_SIZE = 100;
+  private static final int DEFAULT_TIMEOUT_SECONDS = 60;
+
+  // Whether the current thread is making a call.
+  private static final ThreadLocal<Boolean> IN_CALL = ThreadLocal.withInitial(() -> false);
+
+  private final MeterRegistry meterRegistry;
+  private final Duration timeout;
+  private final ThreadPoolTaskExecutor executor;
+  // Cancels the calls that don't complete by their deadlines.
+  private final ScheduledExecutorService deadlineScheduler;
+
+  public FanOutExecutor(FanOutConfiguration config, MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    timeout =
+        Duration.ofSeconds(
+            config.timeoutSeconds() > 0 ? config.timeoutSeconds() : DEFAULT_TIMEOUT_SECONDS);
+    executor = createThreadPool(config);
+    new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), METRIC_NAME, Tags.empty())
+        .bindTo(meterRegistry);
+    deadlineScheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("fan-out-deadlines").setDaemon(true).build());
+  }
+
+  private ThreadPoolTaskExecutor createThreadPool(FanOutConfiguration config) {
+    int threads = config.threads() > 0 ? config.threads() : DEFAULT_THREADS;
+    var pool = new ThreadPoolTaskExecutor();
+    pool.setCorePoolSize(threads);
+    pool.setMaxPoolSize(threads);
+    pool.setAllowCoreThreadTimeOut(true);
+    pool.setQueueCapacity(config.queueSize() > 0 ? config.queueSize() : DEFAULT_QUEUE_SIZE);
+    pool.setThreadNamePrefix("fan-out-");
+    pool.setTaskDecorator(FanOutExecutor::withRequestAttributes);
+    pool.setRejectedExecutionHandler(
+        (task, threadPoolExecutor) -> {
+          meterRegistry.counter(REJECTED_METRIC).increment();
+          if (!threadPoolExecutor.isShutdown()) {
+            task.run();
+          }
+        });
+    pool.initialize();
+    return pool;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdown();
+    deadlineScheduler.shutdownNow();
+  }
+
+  // A task is decorated on the submitting thread, so this captures the submitter's attributes.
+  private static Runnable withRequestAttributes(Runnable task) {
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    return () -> {
+      // A rejected task runs on the submitting thread, whose attributes must be kept.
+      RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+      boolean previousInCall = IN_CALL.get();
+      RequestContextHolder.setRequestAttributes(requestAttributes);
+      IN_CALL.set(true);
+      try {
+        task.run();
+      } finally {
+        IN_CALL.set(previousInCall);
+        if (previous == null) {
+          RequestContextHolder.resetRequestAttributes();
+        } else {
+          RequestContextHolder.setRequestAttributes(previous);
+        }
+      }
+    };
+  }
+
+  /**
+   * A call made on behalf of the current request, which is cancelled if it doesn't complete by its
+   * deadline.
+   */
+  private final class Call<V> extends FutureTask<V> {
+    // The operation the call is part of, which tags its metrics.
+    private final String name;
+    private final Object key;
+    private final Duration timeout;
+    private volatile boolean timedOut;
+    private volatile ScheduledFuture<?> deadline;
+
+    Call(String name, Object key, Supplier<V> supplier, Duration timeout) {
+      super(supplier::get);
+      this.name = name;
+      this.key = key;
+      this.timeout = timeout;
+    }
+
+    Call<V> start() {
+      deadline =
+          deadlineScheduler.schedule(this::expire, timeout.toNanos(), TimeUnit.NANOSECONDS);
+      executor.execute(this);
+      return this;
+    }
+
+    private void expire() {
+      if (!isDone()) {
+        // Set before cancelling, so that a caller woken by the cancellation sees it.
+        timedOut = true;
+        if (cancel(true)) {
+          meterRegistry.counter(TIMEOUTS_METRIC, "task", name).increment();
+        }
+      }
+    }
+
+    @Override
+    protected void done() {
+      // The deadline is only unset if it expired before it could be recorded.
+      if (deadline != null) {
+        deadline.cancel(false);
+      }
+    }
+
+    @Override
+    public void run() {
+      boolean wasInterrupted = Thread.currentThread().isInterrupted();
+      super.run();
+      // A call made by its caller, when the pool is busy or the call is nested, is interrupted on
+      // the caller's thread when it expires. The caller is told by the timeout exception instead.
+      if (isCancelled() && !wasInterrupted) {
+        Thread.interrupted();
+      }
+    }
+
+    V await() {
+      if (IN_CALL.get()) {
+        // Make the call here if no thread has started it; otherwise this does nothing.
+        run();
+      }
+      try {
+        return get();
+      } catch (CancellationException e) {
+        if (timedOut) {
+          throw new FanOutTimeoutException(
+              "Call for %s did not complete in %d seconds".formatted(key, timeout.toSeconds()));
+        }
+        throw e;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted waiting for call for " + key, e);
+      } catch (ExecutionException e) {
+        // Rethrow the call's exception so it's reported the same as a sequential call.
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+          throw runtimeException;
+        }
+        if (e.getCause() instanceof Error error) {
+          throw error;
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Call a function for each of the given keys concurrently, on behalf of the current request.
+   * Calls that haven't completed when the timeout expires are cancelled.
+   *
+   * @param name the name of the calls, used in metrics
+   * @param keys the keys to call the function for
+   * @param function the function to call
+   * @return the result for each key
+   * @throws FanOutTimeoutException if a call doesn't complete in time
+   * @param <K> the type of the keys
+   * @param <V> the type of the results
+   */
+  public <K, V> Map<K, V> map(String name, Collection<K> keys, Function<K, V> function) {
+    Map<K, Call<V>> calls = new LinkedHashMap<>();
+    Map<K, V> results = new LinkedHashMap<>();
+    try {
+      for (K key : keys) {
+        calls.put(key, new Call<>(name, key, () -> function.apply(key), timeout).start());
+      }
+      for (var entry : calls.entrySet()) {
+        results.put(entry.getKey(), entry.getValue().await());
+      }
+    } finally {
+      // If a call failed, the others aren't needed.
+      cancel(calls);
+    }
+    return results;
+  }
+
+  /**
+   * Make two calls concurrently on behalf of the current request, and combine their results. The
+   * second call is made by the calling thread. If it fails, or the first call doesn't complete
+   * before the timeout expires, the first call is cancelled.
+   *
+   * @param name the name of the calls, used in errors and metrics
+   * @param first the call made on another thread
+   * @param second the call made on the calling thread
+   * @param combiner combines the results of the first and second calls
+   * @return the combined result
+   * @throws FanOutTimeoutException if the first call doesn't complete in time
+   * @param <A> the type of the first call's result
+   * @param <B> the type of the second call's result
+   * @param <R> the type of the combined result
+   */
+  public <A, B, R> R both(
+      String name, Supplier<A> first, Supplier<B> second, BiFunction<A, B, R> combiner) {
+    var firstCall = new Call<>(name, name, first, timeout).start();
+    try {
+      B secondResult = second.get();
+      return combiner.apply(firstCall.await(), secondResult);
+    } finally {
+      firstCall.cancel(true);
+    }
+  }
+
+  /**
+   * The results of the calls that completed in time, and the keys of the calls that failed or
+   * didn't complete in time.
+   */
+  public record PartialResults<K, V>(Map<K, V> results, Set<K> failed) {}
+
+  /**
+   * Call a function for each of the given keys concurrently, on behalf of the current request,
+   * giving up on the calls that fail or don't complete by their deadline instead of failing.
+   *
+   * @param name the name of the calls, used in metrics
+   * @param keys the keys to call the function for
+   * @param function the function to call
+   * @param deadlines the time to wait for the call for each key, measured from when the call is
+   *     submitted; null, or a time longer than the configured timeout, waits for the timeout
+   * @return the results of the calls that completed, and the keys of the calls that didn't
+   * @param <K> the type of the keys
+   * @param <V> the type of the results
+   */
+  public <K, V> PartialResults<K, V> mapPartial(
+      String name,
+      Collection<K> keys,
+      Function<K, V> function,
+      Function<K, Duration> deadlines) {
+    Map<K, Call<V>> calls = new LinkedHashMap<>();
+    Map<K, V> results = new LinkedHashMap<>();
+    Set<K> failed = new LinkedHashSet<>();
+    try {
+      for (K key : keys) {
+        Duration deadline = deadlines.apply(key);
+        if (deadline == null || deadline.compareTo(timeout) > 0) {
+          deadline = timeout;
+        }
+        calls.put(key, new Call<>(name, key, () -> function.apply(key), deadline).start());
+      }
+      for (var entry : calls.entrySet()) {
+        try {
+          results.put(entry.getKey(), entry.getValue().await());
+        } catch (RuntimeException e) {
+          logger.warn("Call for {} failed, continuing without it", entry.getKey(), e);
+          failed.add(entry.getKey());
+        }
+      }
+    } finally {
+      cancel(calls);
+    }
+    return new PartialResults<>(results, failed);
+  }
+
+  private static void cancel(Map<?, ? extends Future<?>> futures) {
+    futures.values().forEach(future -> future.cancel(true));
+  }
+}
@@ -0,0 +1,11 @@
+package bio.terra.catalog.common;
+
+import bio.terra.common.exception.ErrorReportException;
+import org.springframework.http.HttpStatus;
+
+/** A call made by the {@link FanOutExecutor} didn't complete in time. */
+public class FanOutTimeoutException extends ErrorReportException {
+  public FanOutTimeoutException(String message) {
+    super(message, null, HttpStatus.GATEWAY_TIMEOUT);
+  }
+}
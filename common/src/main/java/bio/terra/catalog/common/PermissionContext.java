@@ -0,0 +1,48 @@
+package bio.terra.catalog.common;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Remembers the answers to permission questions for the duration of one API request.
+ *
+ * <p>Handling a request can ask Sam or a storage system the same question more than once. For
+ * example, reading a catalog entry checks the user's role on the dataset, and then looks up the
+ * dataset, which checks the role again. Within a request the answer can't usefully change, so the
+ * first answer is reused. Failed calls aren't remembered.
+ */
+@Component
+@RequestScope
+public class PermissionContext {
+  private final Map<Key, Object> results = new ConcurrentHashMap<>();
+
+  private record Key(String system, String method, List<?> arguments) {}
+
+  /**
+   * Return the result of an earlier identical call in this request, or make the call.
+   *
+   * @param system the system being called
+   * @param method the name of the system operation
+   * @param arguments the arguments that identify the call
+   * @param call the call to make
+   * @return the result of the call
+   * @param <T> the type of the result
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T memoize(String system, String method, List<?> arguments, Supplier<T> call) {
+    var key = new Key(system, method, arguments);
+    var result = (T) results.get(key);
+    if (result == null) {
+      // The call isn't made inside computeIfAbsent, because it can make other memoized calls.
+      result = call.get();
+      if (result != null) {
+        results.putIfAbsent(key, result);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,114 @@
+package bio.terra.catalog.common;
+
+import bio.terra.catalog.config.HttpClientConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import java.util.function.ToIntFunction;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.glassfish.jersey.apache5.connector.Apache5ClientProperties;
+import org.glassfish.jersey.apache5.connector.Apache5ConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+
+/**
+ * Builds the HTTP clients shared by all calls to a storage system. The generated API clients
+ * default to a connector with library-default pooling and no timeouts; these clients use a
+ * connection pool sized by configuration, and report its saturation as metrics.
+ */
+public final class PooledHttpClient {
+  static final String CONNECTIONS_METRIC = "catalog.http.client.connections";
+
+  private PooledHttpClient() {}
+
+  /**
+   * Create a pooled HTTP client.
+   *
+   * @param name the name of the system being called, used to tag metrics
+   * @param defaultClient the generated API client's HTTP client, whose features and properties
+   *     are kept. It's closed once its configuration has been copied.
+   * @param config the pool configuration, or null to use the defaults
+   * @param meterRegistry the registry for the pool's metrics
+   * @return an HTTP client to share across requests
+   */
+  public static Client create(
+      String name,
+      Client defaultClient,
+      HttpClientConfiguration config,
+      MeterRegistry meterRegistry) {
+    if (config == null) {
+      config = HttpClientConfiguration.DEFAULT;
+    }
+    var connectionManager = createConnectionManager(config);
+    var clientConfig =
+        new ClientConfig()
+            .loadFrom(defaultClient.getConfiguration())
+            .connectorProvider(new Apache5ConnectorProvider())
+            .property(Apache5ClientProperties.CONNECTION_MANAGER, connectionManager);
+    if (config.connectionRequestTimeoutSeconds() > 0) {
+      clientConfig.property(
+          Apache5ClientProperties.REQUEST_CONFIG,
+          RequestConfig.custom()
+              .setConnectionRequestTimeout(
+                  Timeout.ofSeconds(config.connectionRequestTimeoutSeconds()))
+              .build());
+    }
+    defaultClient.close();
+    registerMetrics(name, connectionManager, meterRegistry);
+    return ClientBuilder.newClient(clientConfig);
+  }
+
+  private static PoolingHttpClientConnectionManager createConnectionManager(
+      HttpClientConfiguration config) {
+    var connectionConfig = ConnectionConfig.custom();
+    if (config.connectTimeoutSeconds() > 0) {
+      connectionConfig.setConnectTimeout(Timeout.ofSeconds(config.connectTimeoutSeconds()));
+    }
+    if (config.readTimeoutSeconds() > 0) {
+      connectionConfig.setSocketTimeout(Timeout.ofSeconds(config.readTimeoutSeconds()));
+    }
+    if (config.keepAliveSeconds() > 0) {
+      connectionConfig.setTimeToLive(TimeValue.ofSeconds(config.keepAliveSeconds()));
+    }
+    var builder =
+        PoolingHttpClientConnectionManagerBuilder.create()
+            .setDefaultConnectionConfig(connectionConfig.build());
+    if (config.maxConnections() > 0) {
+      builder.setMaxConnTotal(config.maxConnections());
+    }
+    if (config.maxConnectionsPerRoute() > 0) {
+      builder.setMaxConnPerRoute(config.maxConnectionsPerRoute());
+    }
+    return builder.build();
+  }
+
+  private static void registerMetrics(
+      String name, PoolingHttpClientConnectionManager connectionManager, MeterRegistry registry) {
+    registerGauge(name, "leased", connectionManager, PoolStats::getLeased, registry);
+    registerGauge(name, "available", connectionManager, PoolStats::getAvailable, registry);
+    // Requests waiting for a connection; a pool that's too small shows up here first.
+    registerGauge(name, "pending", connectionManager, PoolStats::getPending, registry);
+    registerGauge(name, "max", connectionManager, PoolStats::getMax, registry);
+  }
+
+  private static void registerGauge(
+      String name,
+      String state,
+      PoolingHttpClientConnectionManager connectionManager,
+      ToIntFunction<PoolStats> stat,
+      MeterRegistry registry) {
+    Gauge.builder(
+            CONNECTIONS_METRIC,
+            connectionManager,
+            manager -> stat.applyAsInt(manager.getTotalStats()))
+        .tag("system", name)
+        .tag("state", state)
+        .register(registry);
+  }
+}
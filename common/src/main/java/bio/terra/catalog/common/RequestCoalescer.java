@@ -0,0 +1,108 @@
+package bio.terra.catalog.common;
+
+import bio.terra.catalog.config.FanOutConfiguration;
+import bio.terra.common.iam.BearerToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces concurrent identical calls to a storage system.
+ *
+ * <p>When a user opens several tabs, or the UI loads a dataset listing and several datasets at
+ * once, the same question is asked of a storage system several times concurrently. If a call for
+ * the same user, storage system, method and arguments is already in flight, the caller waits for
+ * that call and shares its result or exception instead of making its own call. Calls that don't
+ * overlap in time are never shared.
+ *
+ * <p>A waiting caller gives up after the fan-out timeout, the same as a caller that made the call
+ * itself would be given up on, and stops waiting when its thread is interrupted.
+ */
+@Component
+public class RequestCoalescer {
+  static final String COALESCED_METRIC = "catalog.upstream.coalesced";
+
+  // Used when the configuration doesn't set a value.
+  private static final int DEFAULT_TIMEOUT_SECONDS = 60;
+
+  private final BearerToken bearerToken;
+  private final MeterRegistry meterRegistry;
+  private final Duration timeout;
+  private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  private record Key(String token, StorageSystem storageSystem, String method, List<?> arguments) {}
+
+  public RequestCoalescer(
+      BearerToken bearerToken, FanOutConfiguration config, MeterRegistry meterRegistry) {
+    this.bearerToken = bearerToken;
+    this.meterRegistry = meterRegistry;
+    timeout =
+        Duration.ofSeconds(
+            config.timeoutSeconds() > 0 ? config.timeoutSeconds() : DEFAULT_TIMEOUT_SECONDS);
+  }
+
+  /**
+   * Make a call to a storage system on behalf of the current user, or share the result of an
+   * identical call that is already in flight.
+   *
+   * @param storageSystem the storage system being called
+   * @param method the name of the storage system operation
+   * @param arguments the arguments that identify the call
+   * @param call the call to make
+   * @return the result of the call
+   * @throws FanOutTimeoutException if the identical call doesn't complete in time
+   * @param <T> the type of the result
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(
+      StorageSystem storageSystem, String method, List<?> arguments, Supplier<T> call) {
+    var key = new Key(bearerToken.getToken(), storageSystem, method, arguments);
+    var future = new CompletableFuture<>();
+    var existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      meterRegistry
+          .counter(COALESCED_METRIC, "system", storageSystem.name(), "method", method)
+          .increment();
+      return (T) await(existing, method);
+    }
+    try {
+      T result = call.get();
+      future.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  private Object await(CompletableFuture<Object> future, String method) {
+    try {
+      return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new FanOutTimeoutException(
+          "Call to %s did not complete in %d seconds".formatted(method, timeout.toSeconds()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for call to " + method, e);
+    } catch (ExecutionException e) {
+      // Rethrow the storage system's exception so it's reported the same as an uncoalesced call.
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
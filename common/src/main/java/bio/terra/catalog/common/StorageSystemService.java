@@ -54,10 +54,24 @@ public interface StorageSystemService {
    *
    * @param storageSourceId the storage object ID
    * @param tableName the name of the table to preview
+   * @param offset the number of rows to skip
    * @param maxRows the maximum number of rows to return
+   * @param columns the columns to return, or null for all columns; columns that aren't in the table
+   *     are ignored
    * @return the table preview data
    */
-  DatasetPreviewTable previewTable(String storageSourceId, String tableName, int maxRows);
+  DatasetPreviewTable previewTable(
+      String storageSourceId, String tableName, int offset, int maxRows, List<String> columns);
+
+  /**
+   * Check that a storage object can be exported to a Terra workspace. Exports run in the
+   * background, so this is called before an export is started, to reject one that can't succeed
+   * while the request is still open.
+   *
+   * @param storageSourceId the storage object ID
+   * @param workspaceIdDest the workspace ID that the object's tables will be exported to
+   */
+  void validateExport(String storageSourceId, String workspaceIdDest);
 
   /**
    * Export the tables in a storage object to a Terra workspace.
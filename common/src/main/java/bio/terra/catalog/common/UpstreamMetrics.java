@@ -0,0 +1,92 @@
+package bio.terra.catalog.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records metrics for every call to a storage system or Sam, tagged by system and method. The
+ * services record each call where it's made to the upstream client with {@link #record}, so
+ * answers served from a cache or reused within a request aren't recorded.
+ *
+ * <ul>
+ *   <li>{@value #REQUESTS_METRIC}: a timer with percentiles for the call latency
+ *   <li>{@value #ERRORS_METRIC}: a counter of failed calls, also tagged by exception type
+ *   <li>{@value #ACTIVE_METRIC}: a gauge of the calls in flight
+ * </ul>
+ */
+@Component
+public class UpstreamMetrics {
+  public static final String REQUESTS_METRIC = "catalog.upstream.requests";
+  static final String ERRORS_METRIC = "catalog.upstream.errors";
+  static final String ACTIVE_METRIC = "catalog.upstream.active";
+
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<Key, Meters> meters = new ConcurrentHashMap<>();
+
+  private record Key(String system, String method) {}
+
+  private record Meters(Timer timer, AtomicInteger active) {}
+
+  /** A call to an upstream service. */
+  @FunctionalInterface
+  public interface Call<T, E extends Throwable> {
+    T call() throws E;
+  }
+
+  public UpstreamMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Make a call to an upstream service, recording its metrics.
+   *
+   * @param system the upstream service
+   * @param method the name of the operation
+   * @param call the call to make
+   * @return the result of the call
+   * @param <T> the type of the result
+   * @param <E> the type of exception the call throws
+   */
+  public <T, E extends Throwable> T record(String system, String method, Call<T, E> call)
+      throws E {
+    var key = new Key(system, method);
+    var callMeters = meters.computeIfAbsent(key, this::register);
+    callMeters.active().incrementAndGet();
+    var sample = Timer.start(meterRegistry);
+    try {
+      return call.call();
+    } catch (Throwable e) {
+      meterRegistry
+          .counter(
+              ERRORS_METRIC,
+              "system",
+              key.system(),
+              "method",
+              key.method(),
+              "exception",
+              e.getClass().getSimpleName())
+          .increment();
+      throw e;
+    } finally {
+      sample.stop(callMeters.timer());
+      callMeters.active().decrementAndGet();
+    }
+  }
+
+  private Meters register(Key key) {
+    var tags = Tags.of("system", key.system(), "method", key.method());
+    var timer =
+        Timer.builder(REQUESTS_METRIC)
+            .tags(tags)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    var active = meterRegistry.gauge(ACTIVE_METRIC, tags, new AtomicInteger());
+    return new Meters(timer, active);
+  }
+}
@@ -1,22 +1,61 @@
 package bio.terra.catalog.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.util.Properties;
+import java.util.function.ToDoubleFunction;
+import javax.sql.DataSource;
 import org.apache.commons.dbcp2.ConnectionFactory;
 import org.apache.commons.dbcp2.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp2.PoolableConnection;
 import org.apache.commons.dbcp2.PoolableConnectionFactory;
 import org.apache.commons.dbcp2.PoolingDataSource;
-import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
 /** Base class for accessing database connection configuration properties. */
 public class BaseDatabaseConfiguration {
+  static final String CONNECTIONS_METRIC = "catalog.database.connections";
+  // Hikari's own default, used when maxTotal isn't positive, since Hikari has no unlimited pool.
+  static final int DEFAULT_HIKARI_MAX_TOTAL = 10;
+
+  /** The connection pool implementations that can back the data source. */
+  public enum PoolImplementation {
+    DBCP,
+    HIKARI
+  }
+
   private String uri;
   private String username;
   private String password;
 
-  // Not a property
-  private PoolingDataSource<PoolableConnection> dataSource;
+  // Connection pool properties. The defaults are those of the DBCP pool.
+  private PoolImplementation poolImplementation = PoolImplementation.DBCP;
+  /** The maximum number of open connections; if not positive, unlimited with DBCP */
+  private int maxTotal = GenericObjectPoolConfig.DEFAULT_MAX_TOTAL;
+  /** The maximum number of idle connections kept open; not supported by Hikari */
+  private int maxIdle = GenericObjectPoolConfig.DEFAULT_MAX_IDLE;
+  /** The minimum number of idle connections kept open */
+  private int minIdle = GenericObjectPoolConfig.DEFAULT_MIN_IDLE;
+  /** How long to wait for a connection when the pool is exhausted; negative waits forever */
+  private long maxWaitMillis = -1;
+  /** The query used to validate connections; if not set, the driver validates connections */
+  private String validationQuery;
+  /** If true, connections are validated before they're borrowed; Hikari always validates */
+  private boolean testOnBorrow;
+  /** How often idle connections are evicted; negative disables eviction; not supported by Hikari */
+  private long evictionIntervalMillis = -1;
+  /** If true, prepared statements are pooled per connection; not supported by Hikari */
+  private boolean poolPreparedStatements;
+  /** The maximum number of pooled prepared statements per connection; negative is unlimited */
+  private int maxOpenPreparedStatements = -1;
+
+  // Not properties
+  private DataSource dataSource;
+  private GenericObjectPool<PoolableConnection> dbcpPool;
 
   public String getUri() {
     return uri;
@@ -30,6 +69,46 @@ public class BaseDatabaseConfiguration {
     return password;
   }
 
+  public PoolImplementation getPoolImplementation() {
+    return poolImplementation;
+  }
+
+  public int getMaxTotal() {
+    return maxTotal;
+  }
+
+  public int getMaxIdle() {
+    return maxIdle;
+  }
+
+  public int getMinIdle() {
+    return minIdle;
+  }
+
+  public long getMaxWaitMillis() {
+    return maxWaitMillis;
+  }
+
+  public String getValidationQuery() {
+    return validationQuery;
+  }
+
+  public boolean isTestOnBorrow() {
+    return testOnBorrow;
+  }
+
+  public long getEvictionIntervalMillis() {
+    return evictionIntervalMillis;
+  }
+
+  public boolean isPoolPreparedStatements() {
+    return poolPreparedStatements;
+  }
+
+  public int getMaxOpenPreparedStatements() {
+    return maxOpenPreparedStatements;
+  }
+
   // NOTE: even though the setters appear unused, the Spring infrastructure uses them to populate
   // the properties.
   public void setUri(String uri) {
@@ -44,8 +123,48 @@ public class BaseDatabaseConfiguration {
     this.password = password;
   }
 
+  public void setPoolImplementation(PoolImplementation poolImplementation) {
+    this.poolImplementation = poolImplementation;
+  }
+
+  public void setMaxTotal(int maxTotal) {
+    this.maxTotal = maxTotal;
+  }
+
+  public void setMaxIdle(int maxIdle) {
+    this.maxIdle = maxIdle;
+  }
+
+  public void setMinIdle(int minIdle) {
+    this.minIdle = minIdle;
+  }
+
+  public void setMaxWaitMillis(long maxWaitMillis) {
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  public void setValidationQuery(String validationQuery) {
+    this.validationQuery = validationQuery;
+  }
+
+  public void setTestOnBorrow(boolean testOnBorrow) {
+    this.testOnBorrow = testOnBorrow;
+  }
+
+  public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+    this.evictionIntervalMillis = evictionIntervalMillis;
+  }
+
+  public void setPoolPreparedStatements(boolean poolPreparedStatements) {
+    this.poolPreparedStatements = poolPreparedStatements;
+  }
+
+  public void setMaxOpenPreparedStatements(int maxOpenPreparedStatements) {
+    this.maxOpenPreparedStatements = maxOpenPreparedStatements;
+  }
+
   // Main use of the configuration is this pooling data source object.
-  public PoolingDataSource<PoolableConnection> getDataSource() {
+  public DataSource getDataSource() {
     // Lazy allocation of the data source
     if (dataSource == null) {
       configureDataSource();
@@ -53,8 +172,21 @@ public class BaseDatabaseConfiguration {
     return dataSource;
   }
 
+  /** Properties passed to the JDBC driver when opening a connection, other than credentials. */
+  protected Properties getDriverProperties() {
+    return new Properties();
+  }
+
   private void configureDataSource() {
-    Properties props = new Properties();
+    if (poolImplementation == PoolImplementation.HIKARI) {
+      configureHikariDataSource();
+    } else {
+      configureDbcpDataSource();
+    }
+  }
+
+  private void configureDbcpDataSource() {
+    Properties props = getDriverProperties();
     props.setProperty("user", getUsername());
     props.setProperty("password", getPassword());
 
@@ -62,12 +194,99 @@ public class BaseDatabaseConfiguration {
 
     PoolableConnectionFactory poolableConnectionFactory =
         new PoolableConnectionFactory(connectionFactory, null);
+    poolableConnectionFactory.setValidationQuery(getValidationQuery());
+    poolableConnectionFactory.setPoolStatements(isPoolPreparedStatements());
+    poolableConnectionFactory.setMaxOpenPreparedStatements(getMaxOpenPreparedStatements());
+
+    GenericObjectPoolConfig<PoolableConnection> poolConfig = new GenericObjectPoolConfig<>();
+    poolConfig.setMaxTotal(getMaxTotal());
+    poolConfig.setMaxIdle(getMaxIdle());
+    poolConfig.setMinIdle(getMinIdle());
+    poolConfig.setMaxWait(Duration.ofMillis(getMaxWaitMillis()));
+    poolConfig.setTestOnBorrow(isTestOnBorrow());
+    poolConfig.setTimeBetweenEvictionRuns(Duration.ofMillis(getEvictionIntervalMillis()));
+    // The pool's metrics are exported by bindPoolMetrics() instead.
+    poolConfig.setJmxEnabled(false);
+
+    dbcpPool = new GenericObjectPool<>(poolableConnectionFactory, poolConfig);
+
+    poolableConnectionFactory.setPool(dbcpPool);
+
+    dataSource = new PoolingDataSource<>(dbcpPool);
+  }
 
-    ObjectPool<PoolableConnection> connectionPool =
-        new GenericObjectPool<>(poolableConnectionFactory);
+  private void configureHikariDataSource() {
+    // The pool is started by the first request for a connection, as with DBCP.
+    var hikariDataSource = new HikariDataSource();
+    hikariDataSource.setJdbcUrl(getUri());
+    hikariDataSource.setUsername(getUsername());
+    hikariDataSource.setPassword(getPassword());
+    hikariDataSource.setDataSourceProperties(getDriverProperties());
+    hikariDataSource.setMaximumPoolSize(hikariMaxTotal());
+    hikariDataSource.setMinimumIdle(getMinIdle());
+    // Hikari waits forever when the timeout is zero.
+    hikariDataSource.setConnectionTimeout(Math.max(getMaxWaitMillis(), 0));
+    if (getValidationQuery() != null) {
+      hikariDataSource.setConnectionTestQuery(getValidationQuery());
+    }
+    dataSource = hikariDataSource;
+  }
+
+  private int hikariMaxTotal() {
+    return getMaxTotal() > 0 ? getMaxTotal() : DEFAULT_HIKARI_MAX_TOTAL;
+  }
+
+  /**
+   * Export the number of active and idle connections, and the number of threads waiting for a
+   * connection, with the same names for either pool implementation.
+   */
+  public void bindPoolMetrics(MeterRegistry registry) {
+    registerGauge("active", registry, BaseDatabaseConfiguration::activeConnections);
+    registerGauge("idle", registry, BaseDatabaseConfiguration::idleConnections);
+    registerGauge("pending", registry, BaseDatabaseConfiguration::pendingConnections);
+    registerGauge("max", registry, BaseDatabaseConfiguration::maxConnections);
+  }
+
+  private void registerGauge(
+      String state, MeterRegistry registry, ToDoubleFunction<BaseDatabaseConfiguration> stat) {
+    Gauge.builder(CONNECTIONS_METRIC, this, stat)
+        .tag("pool", getPoolImplementation().name())
+        .tag("state", state)
+        .register(registry);
+  }
+
+  private HikariPoolMXBean hikariPool() {
+    // Hikari only has a pool once it's been started.
+    return dataSource instanceof HikariDataSource hikariDataSource
+        ? hikariDataSource.getHikariPoolMXBean()
+        : null;
+  }
+
+  private int maxConnections() {
+    return poolImplementation == PoolImplementation.HIKARI ? hikariMaxTotal() : getMaxTotal();
+  }
 
-    poolableConnectionFactory.setPool(connectionPool);
+  private int activeConnections() {
+    var hikariPool = hikariPool();
+    if (hikariPool != null) {
+      return hikariPool.getActiveConnections();
+    }
+    return dbcpPool != null ? dbcpPool.getNumActive() : 0;
+  }
 
-    dataSource = new PoolingDataSource<>(connectionPool);
+  private int idleConnections() {
+    var hikariPool = hikariPool();
+    if (hikariPool != null) {
+      return hikariPool.getIdleConnections();
+    }
+    return dbcpPool != null ? dbcpPool.getNumIdle() : 0;
+  }
+
+  private int pendingConnections() {
+    var hikariPool = hikariPool();
+    if (hikariPool != null) {
+      return hikariPool.getThreadsAwaitingConnection();
+    }
+    return dbcpPool != null ? dbcpPool.getNumWaiters() : 0;
   }
 }
@@ -1,6 +1,9 @@
 package bio.terra.catalog.config;
 
 import bio.terra.common.migrate.LiquibaseMigrator;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Properties;
+import org.postgresql.PGProperty;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.ApplicationContext;
@@ -29,6 +32,17 @@ public class CatalogDatabaseConfiguration extends BaseDatabaseConfiguration {
   /** If true, primary database will have changesets applied */
   private boolean upgradeOnStart;
 
+  // These properties control the driver's server-side prepared statements. If not set, the
+  // driver's defaults are used.
+  /** The number of executions of a statement before the driver prepares it on the server */
+  private Integer prepareThreshold;
+
+  /** The number of prepared statements the driver caches per connection */
+  private Integer preparedStatementCacheQueries;
+
+  /** The size in MiB of the driver's per-connection prepared statement cache */
+  private Integer preparedStatementCacheSizeMiB;
+
   public boolean isInitializeOnStart() {
     return initializeOnStart;
   }
@@ -45,6 +59,47 @@ public class CatalogDatabaseConfiguration extends BaseDatabaseConfiguration {
     this.upgradeOnStart = upgradeOnStart;
   }
 
+  public Integer getPrepareThreshold() {
+    return prepareThreshold;
+  }
+
+  public void setPrepareThreshold(Integer prepareThreshold) {
+    this.prepareThreshold = prepareThreshold;
+  }
+
+  public Integer getPreparedStatementCacheQueries() {
+    return preparedStatementCacheQueries;
+  }
+
+  public void setPreparedStatementCacheQueries(Integer preparedStatementCacheQueries) {
+    this.preparedStatementCacheQueries = preparedStatementCacheQueries;
+  }
+
+  public Integer getPreparedStatementCacheSizeMiB() {
+    return preparedStatementCacheSizeMiB;
+  }
+
+  public void setPreparedStatementCacheSizeMiB(Integer preparedStatementCacheSizeMiB) {
+    this.preparedStatementCacheSizeMiB = preparedStatementCacheSizeMiB;
+  }
+
+  @Override
+  protected Properties getDriverProperties() {
+    Properties props = super.getDriverProperties();
+    setDriverProperty(props, PGProperty.PREPARE_THRESHOLD, getPrepareThreshold());
+    setDriverProperty(
+        props, PGProperty.PREPARED_STATEMENT_CACHE_QUERIES, getPreparedStatementCacheQueries());
+    setDriverProperty(
+        props, PGProperty.PREPARED_STATEMENT_CACHE_SIZE_MIB, getPreparedStatementCacheSizeMiB());
+    return props;
+  }
+
+  private static void setDriverProperty(Properties props, PGProperty property, Integer value) {
+    if (value != null) {
+      property.set(props, value);
+    }
+  }
+
   // This bean plus the @EnableTransactionManagement annotation above enables the use of the
   // @Transaction annotation to control the transaction properties of the data source.
   @Bean("transactionManager")
@@ -52,6 +107,12 @@ public class CatalogDatabaseConfiguration extends BaseDatabaseConfiguration {
     return new JdbcTransactionManager(getDataSource());
   }
 
+  // Spring binds the pool's gauges to the application's meter registry.
+  @Bean
+  public MeterBinder catalogDatabasePoolMetrics() {
+    return this::bindPoolMetrics;
+  }
+
   // This is a "magic bean": It supplies a method that Spring calls after the application is setup,
   // but before the port is opened for business. That lets us do database migration and stairway
   // initialization on a system that is otherwise fully configured. The rule of thumb is that all
@@ -0,0 +1,14 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the in-memory catalog index.
+ *
+ * @param enabled whether catalog reads are served from memory; if false, every read goes to the
+ *     database
+ * @param reconnectDelaySeconds how long to wait before reconnecting after the connection used to
+ *     listen for catalog changes fails
+ */
+@ConfigurationProperties(prefix = "catalog.catalog-index")
+public record CatalogIndexConfiguration(boolean enabled, int reconnectDelaySeconds) {}
@@ -2,5 +2,16 @@ package bio.terra.catalog.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * @param basePath the URL of the Terra Data Repository
+ * @param client the configuration of the HTTP client used for Data Repository calls
+ * @param enumeratePageSize the number of snapshots requested by each call that lists a user's
+ *     snapshots
+ * @param enumerateConcurrency the number of pages of a user's snapshots that are requested at once
+ */
 @ConfigurationProperties(prefix = "catalog.datarepo")
-public record DatarepoConfiguration(String basePath) {}
+public record DatarepoConfiguration(
+    String basePath,
+    HttpClientConfiguration client,
+    int enumeratePageSize,
+    int enumerateConcurrency) {}
@@ -0,0 +1,17 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the per-user dataset access cache.
+ *
+ * @param enabled whether storage system results are cached
+ * @param ttlSeconds the maximum age of a result that will be served
+ * @param maxSize the maximum number of results kept
+ * @param refreshAfterSeconds the age after which a result is served stale and refreshed in the
+ *     background; if zero, results are never refreshed in the background
+ * @param refreshThreads the number of threads used for background refreshes
+ */
+@ConfigurationProperties(prefix = "catalog.dataset-cache")
+public record DatasetCacheConfiguration(
+    boolean enabled, int ttlSeconds, long maxSize, int refreshAfterSeconds, int refreshThreads) {}
@@ -0,0 +1,20 @@
+package bio.terra.catalog.config;
+
+import bio.terra.catalog.common.StorageSystem;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for listing datasets.
+ *
+ * @param streaming whether an unpaged, unprojected dataset listing is written to the response as
+ *     the datasets are read, rather than built in memory first; a failure part way through a
+ *     streamed listing can't be reported with an error status, and ends the response early
+ * @param partialResults whether a listing is returned without the datasets of a storage system that
+ *     fails or misses its deadline, rather than failing the listing
+ * @param deadlineSeconds how long a listing waits for each storage system when returning partial
+ *     results; systems without a deadline use the fan-out timeout
+ */
+@ConfigurationProperties(prefix = "catalog.dataset-list")
+public record DatasetListConfiguration(
+    boolean streaming, boolean partialResults, Map<StorageSystem, Integer> deadlineSeconds) {}
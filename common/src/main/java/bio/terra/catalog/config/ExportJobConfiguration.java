@@ -0,0 +1,18 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the jobs that export datasets into workspaces in the background.
+ *
+ * @param threads the number of exports that run at once
+ * @param queueSize the number of exports that can wait for a thread; when the queue is full, new
+ *     exports are refused
+ * @param heartbeatSeconds how often an instance of the service records that its jobs are still
+ *     running
+ * @param staleAfterSeconds the time after which an unfinished job that hasn't been updated is
+ *     considered interrupted and marked as failed; must be longer than the heartbeat interval
+ */
+@ConfigurationProperties(prefix = "catalog.export-jobs")
+public record ExportJobConfiguration(
+    int threads, int queueSize, int heartbeatSeconds, int staleAfterSeconds) {}
@@ -0,0 +1,15 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the executor that runs a request's calls to several storage systems
+ * concurrently.
+ *
+ * @param threads the number of threads that make calls
+ * @param queueSize the number of calls that can wait for a thread; when the queue is full, the
+ *     requesting thread makes the call itself
+ * @param timeoutSeconds the time a request waits for each call before giving up on it
+ */
+@ConfigurationProperties(prefix = "catalog.fan-out")
+public record FanOutConfiguration(int threads, int queueSize, int timeoutSeconds) {}
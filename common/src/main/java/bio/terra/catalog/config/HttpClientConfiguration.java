@@ -0,0 +1,23 @@
+package bio.terra.catalog.config;
+
+/**
+ * Configuration for the pooled HTTP client shared by all calls to a storage system. A value of zero
+ * uses the HTTP client's default.
+ *
+ * @param maxConnections the maximum number of open connections
+ * @param maxConnectionsPerRoute the maximum number of open connections to one host
+ * @param keepAliveSeconds the longest time a connection is kept open for reuse
+ * @param connectTimeoutSeconds the timeout for opening a connection
+ * @param readTimeoutSeconds the timeout for reading a response
+ * @param connectionRequestTimeoutSeconds the timeout for waiting for a connection from the pool
+ */
+public record HttpClientConfiguration(
+    int maxConnections,
+    int maxConnectionsPerRoute,
+    int keepAliveSeconds,
+    int connectTimeoutSeconds,
+    int readTimeoutSeconds,
+    int connectionRequestTimeoutSeconds) {
+  public static final HttpClientConfiguration DEFAULT =
+      new HttpClientConfiguration(0, 0, 0, 0, 0, 0);
+}
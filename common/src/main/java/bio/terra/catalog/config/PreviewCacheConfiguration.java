@@ -0,0 +1,16 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the cache of Data Repo table previews.
+ *
+ * @param enabled whether previews are cached
+ * @param maxRows the maximum total number of rows in the previews kept in memory
+ * @param diskDirectory the directory where compressed previews are also kept; if not set, previews
+ *     are only kept in memory
+ * @param diskMaxSizeMiB the maximum total size of the compressed previews kept on disk
+ */
+@ConfigurationProperties(prefix = "catalog.preview-cache")
+public record PreviewCacheConfiguration(
+    boolean enabled, long maxRows, String diskDirectory, int diskMaxSizeMiB) {}
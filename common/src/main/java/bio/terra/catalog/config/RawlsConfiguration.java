@@ -2,5 +2,9 @@ package bio.terra.catalog.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * @param basePath the URL of Rawls
+ * @param client the configuration of the HTTP client used for Rawls calls
+ */
 @ConfigurationProperties(prefix = "catalog.rawls")
-public record RawlsConfiguration(String basePath) {}
+public record RawlsConfiguration(String basePath, HttpClientConfiguration client) {}
@@ -0,0 +1,13 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the per-user cache of global catalog actions from Sam.
+ *
+ * @param enabled whether a user's global actions are cached
+ * @param ttlSeconds the maximum age of a user's actions that will be used
+ * @param maxSize the maximum number of users whose actions are kept
+ */
+@ConfigurationProperties(prefix = "catalog.sam-action-cache")
+public record SamActionCacheConfiguration(boolean enabled, int ttlSeconds, long maxSize) {}
@@ -0,0 +1,21 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the HTTP client shared by all Sam calls. A value of zero uses the HTTP
+ * client's default.
+ *
+ * @param maxIdleConnections the maximum number of idle connections kept open for reuse
+ * @param keepAliveSeconds how long an idle connection is kept open
+ * @param maxRequestsPerHost the maximum number of concurrent asynchronous calls to Sam
+ * @param connectTimeoutSeconds the timeout for opening a connection
+ * @param readTimeoutSeconds the timeout for reading a response
+ */
+@ConfigurationProperties(prefix = "catalog.sam-client")
+public record SamClientConfiguration(
+    int maxIdleConnections,
+    int keepAliveSeconds,
+    int maxRequestsPerHost,
+    int connectTimeoutSeconds,
+    int readTimeoutSeconds) {}
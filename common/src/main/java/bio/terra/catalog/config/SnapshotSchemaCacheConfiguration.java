@@ -0,0 +1,13 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the cache of Data Repo snapshot tables. Snapshots can't be changed, so a
+ * snapshot's tables are kept until they're evicted to make room for others.
+ *
+ * @param enabled whether snapshot tables are cached
+ * @param maxSize the maximum number of snapshots whose tables are kept
+ */
+@ConfigurationProperties(prefix = "catalog.snapshot-schema-cache")
+public record SnapshotSchemaCacheConfiguration(boolean enabled, long maxSize) {}
@@ -0,0 +1,13 @@
+package bio.terra.catalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the cache of workspace names, which are needed to call most Rawls APIs.
+ *
+ * @param enabled whether workspace names are cached
+ * @param ttlSeconds the maximum age of a workspace name that will be used
+ * @param maxSize the maximum number of workspace names kept
+ */
+@ConfigurationProperties(prefix = "catalog.workspace-name-cache")
+public record WorkspaceNameCacheConfiguration(boolean enabled, int ttlSeconds, long maxSize) {}
@@ -1,10 +1,13 @@
 package bio.terra.catalog.datarepo;
 
+import bio.terra.catalog.common.PooledHttpClient;
+import bio.terra.catalog.common.StorageSystem;
 import bio.terra.catalog.config.DatarepoConfiguration;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.datarepo.api.SnapshotsApi;
 import bio.terra.datarepo.api.UnauthenticatedApi;
 import bio.terra.datarepo.client.ApiClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.ws.rs.client.Client;
 import org.springframework.stereotype.Component;
 
@@ -12,11 +15,18 @@ import org.springframework.stereotype.Component;
 public class DatarepoClient {
   private final DatarepoConfiguration datarepoConfig;
   private final BearerToken bearerToken;
-  private final Client commonHttpClient = new ApiClient().getHttpClient();
+  private final Client commonHttpClient;
 
-  public DatarepoClient(DatarepoConfiguration datarepoConfig, BearerToken bearerToken) {
+  public DatarepoClient(
+      DatarepoConfiguration datarepoConfig, BearerToken bearerToken, MeterRegistry meterRegistry) {
     this.datarepoConfig = datarepoConfig;
     this.bearerToken = bearerToken;
+    commonHttpClient =
+        PooledHttpClient.create(
+            StorageSystem.TERRA_DATA_REPO.name(),
+            new ApiClient().getHttpClient(),
+            datarepoConfig.client(),
+            meterRegistry);
   }
 
   private ApiClient getAuthApiClient() {
@@ -1,11 +1,20 @@
 package bio.terra.catalog.datarepo;
 
+import bio.terra.catalog.common.FanOutExecutor;
+import bio.terra.catalog.common.PermissionContext;
+import bio.terra.catalog.common.RequestCoalescer;
+import bio.terra.catalog.common.StorageSystem;
 import bio.terra.catalog.common.StorageSystemInformation;
 import bio.terra.catalog.common.StorageSystemService;
+import bio.terra.catalog.common.UpstreamMetrics;
+import bio.terra.catalog.config.DatarepoConfiguration;
+import bio.terra.catalog.config.SnapshotSchemaCacheConfiguration;
 import bio.terra.catalog.model.ColumnModel;
 import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.SystemStatusSystems;
 import bio.terra.catalog.model.TableMetadata;
+import bio.terra.catalog.service.dataset.CatalogIndex;
+import bio.terra.catalog.service.dataset.Dataset;
 import bio.terra.catalog.service.dataset.DatasetAccessLevel;
 import bio.terra.common.exception.BadRequestException;
 import bio.terra.common.exception.NotFoundException;
@@ -13,13 +22,25 @@ import bio.terra.datarepo.client.ApiException;
 import bio.terra.datarepo.model.EnumerateSnapshotModel;
 import bio.terra.datarepo.model.QueryDataRequestModel;
 import bio.terra.datarepo.model.RepositoryStatusModel;
-import bio.terra.datarepo.model.SnapshotModel;
 import bio.terra.datarepo.model.SnapshotPreviewModel;
 import bio.terra.datarepo.model.SnapshotRetrieveIncludeModel;
+import bio.terra.datarepo.model.SnapshotSummaryModel;
+import bio.terra.datarepo.model.TableModel;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,18 +62,78 @@ public class DatarepoService implements StorageSystemService {
           READER_ROLE_NAME, DatasetAccessLevel.READER,
           DISCOVERER_ROLE_NAME, DatasetAccessLevel.DISCOVERER);
 
-  // This is the maximum number of datasets returned. If we have more than this number of datasets
-  // in TDR that are in the catalog, this number will need to be increased.
-  private static final int MAX_DATASETS = 1000;
+  static final String CACHE_NAME = "catalog.datarepo.snapshot-tables";
+
+  // Used when the configuration doesn't set a value.
+  private static final int DEFAULT_ENUMERATE_PAGE_SIZE = 500;
+  private static final int DEFAULT_ENUMERATE_CONCURRENCY = 4;
 
   private final DatarepoClient datarepoClient;
+  private final RequestCoalescer requestCoalescer;
+  private final PermissionContext permissionContext;
+  private final CatalogIndex catalogIndex;
+  private final FanOutExecutor fanOutExecutor;
+  private final int enumeratePageSize;
+  private final int enumerateConcurrency;
+  private final SnapshotSchemaCacheConfiguration cacheConfiguration;
+  private final Cache<String, List<TableModel>> snapshotTables;
+  private final SnapshotPreviewCache previewCache;
+  private final UpstreamMetrics upstreamMetrics;
 
   @Autowired
-  public DatarepoService(DatarepoClient datarepoClient) {
+  public DatarepoService(
+      DatarepoClient datarepoClient,
+      RequestCoalescer requestCoalescer,
+      PermissionContext permissionContext,
+      DatarepoConfiguration datarepoConfig,
+      CatalogIndex catalogIndex,
+      FanOutExecutor fanOutExecutor,
+      SnapshotSchemaCacheConfiguration cacheConfiguration,
+      SnapshotPreviewCache previewCache,
+      UpstreamMetrics upstreamMetrics,
+      MeterRegistry meterRegistry) {
     this.datarepoClient = datarepoClient;
+    this.requestCoalescer = requestCoalescer;
+    this.permissionContext = permissionContext;
+    this.catalogIndex = catalogIndex;
+    this.fanOutExecutor = fanOutExecutor;
+    this.cacheConfiguration = cacheConfiguration;
+    this.previewCache = previewCache;
+    this.upstreamMetrics = upstreamMetrics;
+    snapshotTables =
+        CacheBuilder.newBuilder().maximumSize(cacheConfiguration.maxSize()).recordStats().build();
+    GuavaCacheMetrics.monitor(meterRegistry, snapshotTables, CACHE_NAME);
+    enumeratePageSize =
+        datarepoConfig.enumeratePageSize() > 0
+            ? datarepoConfig.enumeratePageSize()
+            : DEFAULT_ENUMERATE_PAGE_SIZE;
+    enumerateConcurrency =
+        datarepoConfig.enumerateConcurrency() > 0
+            ? datarepoConfig.enumerateConcurrency()
+            : DEFAULT_ENUMERATE_CONCURRENCY;
+  }
+
+  private <T> T coalesce(String method, List<?> arguments, Supplier<T> call) {
+    return requestCoalescer.execute(StorageSystem.TERRA_DATA_REPO, method, arguments, call);
+  }
+
+  // Permission answers are reused for the rest of the request.
+  private <T> T memoize(String method, List<?> arguments, Supplier<T> call) {
+    return permissionContext.memoize(
+        StorageSystem.TERRA_DATA_REPO.name(),
+        method,
+        arguments,
+        () -> coalesce(method, arguments, call));
+  }
+
+  // Only calls that reach the Data Repo are recorded, so the metrics aren't skewed by cache hits.
+  private <T> T record(String method, UpstreamMetrics.Call<T, ApiException> call)
+      throws ApiException {
+    return upstreamMetrics.record(StorageSystem.TERRA_DATA_REPO.name(), method, call);
   }
 
-  private DatasetAccessLevel getHighestAccessFromRoleList(List<String> roles) {
+  @VisibleForTesting
+  static DatasetAccessLevel getHighestAccessFromRoleList(List<String> roles) {
     for (DatasetAccessLevel datasetAccessLevel : DatasetAccessLevel.values()) {
       if (roles.stream()
           .map(ROLE_TO_DATASET_ACCESS::get)
@@ -68,38 +149,97 @@ public class DatarepoService implements StorageSystemService {
 
   @Override
   public Map<String, StorageSystemInformation> getDatasets() {
+    return coalesce("getDatasets", List.of(), this::enumerateSnapshots);
+  }
+
+  /**
+   * List the user's snapshots a page at a time, requesting several pages at once. Only the
+   * snapshots in the catalog are needed, so when the catalog index is loaded, listing stops once
+   * they've all been seen. Otherwise, finding the cataloged snapshots would mean reading the
+   * database on every listing, so every page is listed instead.
+   */
+  private Map<String, StorageSystemInformation> enumerateSnapshots() {
+    Map<String, StorageSystemInformation> snapshots = new HashMap<>();
+    // The cataloged snapshots that haven't been listed yet, or null to list every page.
+    Set<String> unseen = null;
+    if (catalogIndex.isLoaded()) {
+      unseen =
+          catalogIndex.listAllDatasets(StorageSystem.TERRA_DATA_REPO).stream()
+              .map(Dataset::storageSourceId)
+              .collect(Collectors.toSet());
+      if (unseen.isEmpty()) {
+        return snapshots;
+      }
+    }
+    EnumerateSnapshotModel firstPage = enumerateSnapshots(0);
+    addSnapshots(firstPage, snapshots, unseen);
+    int total = Objects.requireNonNullElse(firstPage.getFilteredTotal(), 0);
+    int offset = enumeratePageSize;
+    while (offset < total && (unseen == null || !unseen.isEmpty())) {
+      List<Integer> offsets = new ArrayList<>();
+      for (int i = 0; i < enumerateConcurrency && offset < total; i++) {
+        offsets.add(offset);
+        offset += enumeratePageSize;
+      }
+      Set<String> pageUnseen = unseen;
+      fanOutExecutor
+          .map("enumerateSnapshots", offsets, this::enumerateSnapshots)
+          .values()
+          .forEach(page -> addSnapshots(page, snapshots, pageUnseen));
+    }
+    return snapshots;
+  }
+
+  private EnumerateSnapshotModel enumerateSnapshots(int offset) {
     try {
-      EnumerateSnapshotModel response =
-          datarepoClient
-              .snapshotsApi()
-              .enumerateSnapshots(null, MAX_DATASETS, null, null, null, null, null, null, null);
-      Map<String, List<String>> roleMap = response.getRoleMap();
-
-      return response.getItems().stream()
-          .collect(
-              Collectors.toMap(
-                  snapshotSummaryModel -> snapshotSummaryModel.getId().toString(),
-                  snapshotSummaryModel ->
-                      new StorageSystemInformation(
-                          getHighestAccessFromRoleList(
-                              roleMap.get(snapshotSummaryModel.getId().toString())),
-                          snapshotSummaryModel.getPhsId())));
+      return record(
+          "enumerateSnapshots",
+          () ->
+              datarepoClient
+                  .snapshotsApi()
+                  .enumerateSnapshots(
+                      offset, enumeratePageSize, null, null, null, null, null, null, null));
     } catch (ApiException e) {
       throw new DatarepoException("Enumerate snapshots failed", e);
     }
   }
 
+  private static void addSnapshots(
+      EnumerateSnapshotModel page,
+      Map<String, StorageSystemInformation> snapshots,
+      Set<String> unseen) {
+    Map<String, List<String>> roleMap = Objects.requireNonNullElse(page.getRoleMap(), Map.of());
+    for (SnapshotSummaryModel snapshotSummaryModel : page.getItems()) {
+      String id = snapshotSummaryModel.getId().toString();
+      // A snapshot without roles is one the user can't access.
+      snapshots.put(
+          id,
+          new StorageSystemInformation(
+              getHighestAccessFromRoleList(roleMap.getOrDefault(id, List.of())),
+              snapshotSummaryModel.getPhsId()));
+      if (unseen != null) {
+        unseen.remove(id);
+      }
+    }
+  }
+
   @Override
   public StorageSystemInformation getDataset(String snapshotId) {
+    return memoize("getDataset", List.of(snapshotId), () -> retrieveSnapshot(snapshotId));
+  }
+
+  private StorageSystemInformation retrieveSnapshot(String snapshotId) {
     UUID id = UUID.fromString(snapshotId);
     try {
+      var role = getRole(snapshotId);
+      var include = List.of(SnapshotRetrieveIncludeModel.SOURCES);
+      var snapshot =
+          record(
+              "retrieveSnapshot",
+              () -> datarepoClient.snapshotsApi().retrieveSnapshot(id, include));
       return new StorageSystemInformation(
-          getRole(snapshotId),
-          datarepoClient
-              .snapshotsApi()
-              .retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.SOURCES))
-              .getSource()
-              .stream()
+          role,
+          snapshot.getSource().stream()
               .findFirst()
               .map(snapshotSourceModel -> snapshotSourceModel.getDataset().getPhsId())
               .orElse(null));
@@ -108,12 +248,53 @@ public class DatarepoService implements StorageSystemService {
     }
   }
 
-  private SnapshotModel getSnapshotTables(String snapshotId) {
+  /**
+   * Get a snapshot's tables. Snapshots can't be changed, so a snapshot's tables are shared by every
+   * user and kept until evicted. Retrieving the snapshot checks that the user can read it, so when
+   * the tables are cached, the Data Repo is asked to check the user's access instead.
+   */
+  private List<TableModel> getSnapshotTables(String snapshotId) {
+    if (!cacheConfiguration.enabled()) {
+      return retrieveSnapshotTables(snapshotId);
+    }
+    var tables = snapshotTables.getIfPresent(snapshotId);
+    if (tables == null) {
+      tables = retrieveSnapshotTables(snapshotId);
+      snapshotTables.put(snapshotId, tables);
+    } else {
+      ensureReadAccess(snapshotId);
+    }
+    return tables;
+  }
+
+  /**
+   * Check that the user can read a snapshot before returning its cached tables or previews. The
+   * Data Repo's read check takes more than the user's roles into account, so it's asked to retrieve
+   * the snapshot without any of its details, which fails if the user can't read it. The answer is
+   * reused for the rest of the request.
+   */
+  private void ensureReadAccess(String snapshotId) {
+    memoize("ensureReadAccess", List.of(snapshotId), () -> checkReadAccess(snapshotId));
+  }
+
+  private Boolean checkReadAccess(String snapshotId) {
     try {
       UUID id = UUID.fromString(snapshotId);
-      return datarepoClient
-          .snapshotsApi()
-          .retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES));
+      var include = List.of(SnapshotRetrieveIncludeModel.NONE);
+      record("retrieveSnapshot", () -> datarepoClient.snapshotsApi().retrieveSnapshot(id, include));
+      return true;
+    } catch (ApiException e) {
+      throw new DatarepoException(e);
+    }
+  }
+
+  private List<TableModel> retrieveSnapshotTables(String snapshotId) {
+    try {
+      UUID id = UUID.fromString(snapshotId);
+      var include = List.of(SnapshotRetrieveIncludeModel.TABLES);
+      return record(
+              "retrieveSnapshot", () -> datarepoClient.snapshotsApi().retrieveSnapshot(id, include))
+          .getTables();
     } catch (ApiException e) {
       throw new DatarepoException(e);
     }
@@ -121,35 +302,104 @@ public class DatarepoService implements StorageSystemService {
 
   @Override
   public List<TableMetadata> getPreviewTables(String snapshotId) {
-    return getSnapshotTables(snapshotId).getTables().stream()
-        .map(table -> new TableMetadata().name(table.getName()).hasData(table.getRowCount() > 0))
-        .toList();
+    return coalesce(
+        "getPreviewTables",
+        List.of(snapshotId),
+        () ->
+            getSnapshotTables(snapshotId).stream()
+                .map(
+                    table ->
+                        new TableMetadata().name(table.getName()).hasData(table.getRowCount() > 0))
+                .toList());
   }
 
   @Override
-  public DatasetPreviewTable previewTable(String snaphsotId, String tableName, int maxRows) {
+  public DatasetPreviewTable previewTable(
+      String snapshotId, String tableName, int offset, int maxRows, List<String> columns) {
+    return coalesce(
+        "previewTable",
+        Arrays.asList(snapshotId, tableName, offset, maxRows, columns),
+        () -> selectColumns(getPreview(snapshotId, tableName, offset, maxRows), columns));
+  }
+
+  /**
+   * Get a page of a table's rows with all of its columns. The Data Repo can't select columns, so
+   * they're selected from the page, which lets the page be cached for any selection of columns.
+   * A cached page is shared by every user, so the user's access is checked before it's returned.
+   */
+  private DatasetPreviewTable getPreview(
+      String snapshotId, String tableName, int offset, int maxRows) {
+    var key = new SnapshotPreviewCache.Key(snapshotId, tableName, offset, maxRows);
+    var preview = previewCache.get(key);
+    if (preview == null) {
+      preview = querySnapshotTable(snapshotId, tableName, offset, maxRows);
+      previewCache.put(key, preview);
+    } else {
+      ensureReadAccess(snapshotId);
+    }
+    return preview;
+  }
+
+  private static DatasetPreviewTable selectColumns(
+      DatasetPreviewTable preview, List<String> columns) {
+    if (columns == null) {
+      return preview;
+    }
     return new DatasetPreviewTable()
         .columns(
-            getSnapshotTables(snaphsotId).getTables().stream()
-                .filter(tableModel -> tableModel.getName().equals(tableName))
-                .findFirst()
-                .orElseThrow(
-                    () ->
-                        new NotFoundException(
-                            "Table %s not found for dataset".formatted(tableName)))
-                .getColumns()
-                .stream()
-                .map(column -> new ColumnModel().name(column.getName()))
+            preview.getColumns().stream()
+                .filter(column -> columns.contains(column.getName()))
                 .toList())
-        .rows(getPreviewTable(snaphsotId, tableName, maxRows).getResult());
+        .rows(preview.getRows().stream().map(row -> selectColumns(row, columns)).toList());
   }
 
-  private SnapshotPreviewModel getPreviewTable(String snapshotId, String tableName, int maxRows) {
+  private static Object selectColumns(Object row, List<String> columns) {
+    if (!(row instanceof Map<?, ?> values)) {
+      return row;
+    }
+    // Rows can have null values, so they're copied without a collector.
+    Map<Object, Object> selected = new LinkedHashMap<>();
+    values.forEach(
+        (column, value) -> {
+          if (columns.contains(column)) {
+            selected.put(column, value);
+          }
+        });
+    return selected;
+  }
+
+  // The rows are queried while the table's columns are looked up.
+  private DatasetPreviewTable querySnapshotTable(
+      String snaphsotId, String tableName, int offset, int maxRows) {
+    return fanOutExecutor.both(
+        "previewTable",
+        () -> getPreviewTable(snaphsotId, tableName, offset, maxRows),
+        () -> getSnapshotTable(snaphsotId, tableName),
+        (preview, table) ->
+            new DatasetPreviewTable()
+                .columns(
+                    table.getColumns().stream()
+                        .map(column -> new ColumnModel().name(column.getName()))
+                        .toList())
+                .rows(preview.getResult()));
+  }
+
+  private TableModel getSnapshotTable(String snapshotId, String tableName) {
+    return getSnapshotTables(snapshotId).stream()
+        .filter(tableModel -> tableModel.getName().equals(tableName))
+        .findFirst()
+        .orElseThrow(
+            () -> new NotFoundException("Table %s not found for dataset".formatted(tableName)));
+  }
+
+  private SnapshotPreviewModel getPreviewTable(
+      String snapshotId, String tableName, int offset, int maxRows) {
     try {
       UUID id = UUID.fromString(snapshotId);
-      return datarepoClient
-          .snapshotsApi()
-          .querySnapshotDataById(id, tableName, new QueryDataRequestModel().limit(maxRows));
+      var query = new QueryDataRequestModel().offset(offset).limit(maxRows);
+      return record(
+          "querySnapshotDataById",
+          () -> datarepoClient.snapshotsApi().querySnapshotDataById(id, tableName, query));
     } catch (ApiException e) {
       throw new DatarepoException(e);
     }
@@ -157,9 +407,16 @@ public class DatarepoService implements StorageSystemService {
 
   @Override
   public DatasetAccessLevel getRole(String snapshotId) {
+    return memoize("getRole", List.of(snapshotId), () -> retrieveUserSnapshotRoles(snapshotId));
+  }
+
+  private DatasetAccessLevel retrieveUserSnapshotRoles(String snapshotId) {
     try {
       UUID id = UUID.fromString(snapshotId);
-      List<String> roles = datarepoClient.snapshotsApi().retrieveUserSnapshotRoles(id);
+      List<String> roles =
+          record(
+              "retrieveUserSnapshotRoles",
+              () -> datarepoClient.snapshotsApi().retrieveUserSnapshotRoles(id));
       return getHighestAccessFromRoleList(roles);
     } catch (ApiException e) {
       throw new DatarepoException("Get snapshot roles failed", e);
@@ -187,6 +444,11 @@ public class DatarepoService implements StorageSystemService {
     return result;
   }
 
+  @Override
+  public void validateExport(String snapshotIdSource, String workspaceIdDest) {
+    throw new BadRequestException("Exporting Data Repo datasets is not supported in the service");
+  }
+
   @Override
   public void exportToWorkspace(String snapshotIdSource, String workspaceIdDest) {
     throw new BadRequestException("Exporting Data Repo datasets is not supported in the service");
@@ -0,0 +1,254 @@
+package bio.terra.catalog.datarepo;
+
+import bio.terra.catalog.config.PreviewCacheConfiguration;
+import bio.terra.catalog.model.DatasetPreviewTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * A cache of Data Repo table previews, each a page of a table's rows with all of its columns.
+ *
+ * <p>Snapshots can't be changed, so a preview of a snapshot table is the same for every user and
+ * can be kept until it's evicted. Previews are kept in memory up to a configured total number of
+ * rows, and if a directory is configured, also compressed on local disk, so a preview evicted from
+ * memory can be read back without asking the Data Repo to query BigQuery. The files on disk are
+ * kept when the service restarts, and the least recently used are deleted when they exceed the
+ * configured size.
+ *
+ * <p>The cache doesn't check that the user can read the snapshot. The previews returned are shared,
+ * and must not be modified.
+ */
+@Component
+public class SnapshotPreviewCache {
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotPreviewCache.class);
+  static final String CACHE_NAME = "catalog.datarepo.previews";
+  static final String DISK_METRIC = CACHE_NAME + ".disk";
+  private static final String FILE_SUFFIX = ".json.gz";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  // Used when the configuration doesn't set a value.
+  private static final int DEFAULT_DISK_MAX_SIZE_MIB = 512;
+
+  record Key(String snapshotId, String tableName, int offset, int maxRows) {}
+
+  private final PreviewCacheConfiguration configuration;
+  private final ObjectMapper objectMapper;
+  private final Cache<Key, DatasetPreviewTable> previews;
+  private final Path diskDirectory;
+  private final long diskMaxBytes;
+  // The size of each file on disk, least recently used first. Guards diskBytes.
+  private final Map<Path, Long> diskFiles = new LinkedHashMap<>(16, 0.75f, true);
+  private long diskBytes;
+  private final Counter diskHits;
+  private final Counter diskMisses;
+
+  @Autowired
+  public SnapshotPreviewCache(
+      PreviewCacheConfiguration configuration,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this(configuration, objectMapper, meterRegistry, diskMaxBytes(configuration));
+  }
+
+  @VisibleForTesting
+  SnapshotPreviewCache(
+      PreviewCacheConfiguration configuration,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      long diskMaxBytes) {
+    this.configuration = configuration;
+    this.objectMapper = objectMapper;
+    this.diskMaxBytes = diskMaxBytes;
+    previews =
+        CacheBuilder.newBuilder()
+            .maximumWeight(configuration.maxRows())
+            .weigher(SnapshotPreviewCache::weigh)
+            .recordStats()
+            .build();
+    GuavaCacheMetrics.monitor(meterRegistry, previews, CACHE_NAME);
+    diskHits = meterRegistry.counter(DISK_METRIC, "result", "hit");
+    diskMisses = meterRegistry.counter(DISK_METRIC, "result", "miss");
+    String directory = configuration.diskDirectory();
+    diskDirectory =
+        configuration.enabled() && directory != null && !directory.isBlank()
+            ? openDiskDirectory(Path.of(directory))
+            : null;
+  }
+
+  // A preview can have up to a thousand rows, so memory is bounded by rows rather than previews.
+  private static int weigh(Key key, DatasetPreviewTable preview) {
+    return preview.getRows() == null ? 1 : Math.max(1, preview.getRows().size());
+  }
+
+  private static long diskMaxBytes(PreviewCacheConfiguration configuration) {
+    int sizeMiB =
+        configuration.diskMaxSizeMiB() > 0
+            ? configuration.diskMaxSizeMiB()
+            : DEFAULT_DISK_MAX_SIZE_MIB;
+    return sizeMiB * 1024L * 1024L;
+  }
+
+  /** Prepare the disk directory, returning null if it can't be used. */
+  private Path openDiskDirectory(Path directory) {
+    try {
+      Files.createDirectories(directory);
+      List<Path> files;
+      try (Stream<Path> paths = Files.list(directory)) {
+        files = paths.toList();
+      }
+      // Previews written by an earlier run are still valid, but partly written files aren't.
+      List<Map.Entry<Path, BasicFileAttributes>> previewFiles = new ArrayList<>();
+      for (Path file : files) {
+        String fileName = file.getFileName().toString();
+        if (fileName.endsWith(TEMP_FILE_SUFFIX)) {
+          Files.deleteIfExists(file);
+        } else if (fileName.endsWith(FILE_SUFFIX)) {
+          previewFiles.add(Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class)));
+        }
+      }
+      previewFiles.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+      synchronized (diskFiles) {
+        previewFiles.forEach(entry -> addDiskFile(entry.getKey(), entry.getValue().size()));
+      }
+      logger.info("Keeping table previews in {}", directory);
+      return directory;
+    } catch (IOException e) {
+      logger.warn("Unable to use {} for table previews, keeping them in memory only", directory, e);
+      return null;
+    }
+  }
+
+  /**
+   * Return a cached preview.
+   *
+   * @return the preview, or null if it isn't cached
+   */
+  DatasetPreviewTable get(Key key) {
+    if (!configuration.enabled()) {
+      return null;
+    }
+    var preview = previews.getIfPresent(key);
+    if (preview == null && diskDirectory != null) {
+      preview = readFromDisk(key);
+      if (preview != null) {
+        previews.put(key, preview);
+      }
+    }
+    return preview;
+  }
+
+  void put(Key key, DatasetPreviewTable preview) {
+    if (!configuration.enabled()) {
+      return;
+    }
+    previews.put(key, preview);
+    if (diskDirectory != null) {
+      writeToDisk(key, preview);
+    }
+  }
+
+  private Path file(Key key) {
+    return diskDirectory.resolve(
+        Hashing.sha256().hashString(key.toString(), StandardCharsets.UTF_8) + FILE_SUFFIX);
+  }
+
+  private DatasetPreviewTable readFromDisk(Key key) {
+    Path file = file(key);
+    synchronized (diskFiles) {
+      // This also marks the file as the most recently used.
+      if (diskFiles.get(file) == null) {
+        diskMisses.increment();
+        return null;
+      }
+    }
+    try (var in = new GZIPInputStream(Files.newInputStream(file))) {
+      var preview = objectMapper.readValue(in, DatasetPreviewTable.class);
+      diskHits.increment();
+      return preview;
+    } catch (IOException e) {
+      // The file may have been evicted since it was found, or be unreadable.
+      logger.warn("Unable to read table preview from {}", file, e);
+      diskMisses.increment();
+      synchronized (diskFiles) {
+        Long size = diskFiles.remove(file);
+        if (size != null) {
+          diskBytes -= size;
+          deleteQuietly(file);
+        }
+      }
+      return null;
+    }
+  }
+
+  private void writeToDisk(Key key, DatasetPreviewTable preview) {
+    Path file = file(key);
+    Path tempFile = null;
+    try {
+      // The preview is written to a temporary file first, so a partly written file is never read.
+      tempFile = Files.createTempFile(diskDirectory, "preview", TEMP_FILE_SUFFIX);
+      try (var out = new GZIPOutputStream(Files.newOutputStream(tempFile))) {
+        objectMapper.writeValue(out, preview);
+      }
+      long size = Files.size(tempFile);
+      Files.move(
+          tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      synchronized (diskFiles) {
+        addDiskFile(file, size);
+      }
+    } catch (IOException e) {
+      logger.warn("Unable to write table preview to {}", file, e);
+      deleteQuietly(tempFile);
+    }
+  }
+
+  // Must be called while holding the diskFiles lock.
+  private void addDiskFile(Path file, long size) {
+    Long previousSize = diskFiles.put(file, size);
+    diskBytes += size - (previousSize == null ? 0 : previousSize);
+    var iterator = diskFiles.entrySet().iterator();
+    while (diskBytes > diskMaxBytes && iterator.hasNext()) {
+      var eldest = iterator.next();
+      if (eldest.getKey().equals(file)) {
+        continue;
+      }
+      iterator.remove();
+      diskBytes -= eldest.getValue();
+      deleteQuietly(eldest.getKey());
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.warn("Unable to delete {}", file, e);
+    }
+  }
+}
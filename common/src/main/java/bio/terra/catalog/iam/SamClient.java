@@ -1,6 +1,14 @@
 package bio.terra.catalog.iam;
 
+import bio.terra.catalog.config.SamClientConfiguration;
 import bio.terra.catalog.config.SamConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
 import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
 import org.broadinstitute.dsde.workbench.client.sam.api.StatusApi;
@@ -9,10 +17,75 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class SamClient {
+  static final String CONNECTIONS_METRIC = "catalog.sam.client.connections";
+  static final String CALLS_METRIC = "catalog.sam.client.calls";
+
+  // The defaults of OkHttp's connection pool.
+  private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+  private static final int DEFAULT_KEEP_ALIVE_SECONDS = 300;
+
   private final SamConfiguration samConfig;
+  private final OkHttpClient commonHttpClient;
+  // The status API isn't authenticated, so its client can be shared.
+  private final ApiClient unauthenticatedApiClient;
 
-  public SamClient(SamConfiguration samConfig) {
+  public SamClient(
+      SamConfiguration samConfig,
+      SamClientConfiguration clientConfig,
+      MeterRegistry meterRegistry) {
     this.samConfig = samConfig;
+    commonHttpClient = createHttpClient(clientConfig);
+    unauthenticatedApiClient = getApiClient();
+    registerMetrics(meterRegistry);
+  }
+
+  // Share one connection pool across requests, so that connections to Sam are kept alive and
+  // reused.
+  private static OkHttpClient createHttpClient(SamClientConfiguration config) {
+    var connectionPool =
+        new ConnectionPool(
+            config.maxIdleConnections() > 0
+                ? config.maxIdleConnections()
+                : DEFAULT_MAX_IDLE_CONNECTIONS,
+            config.keepAliveSeconds() > 0 ? config.keepAliveSeconds() : DEFAULT_KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS);
+    var dispatcher = new Dispatcher();
+    if (config.maxRequestsPerHost() > 0) {
+      dispatcher.setMaxRequestsPerHost(config.maxRequestsPerHost());
+    }
+    // Start from the generated client's HTTP client, to keep its interceptors.
+    var builder =
+        new ApiClient()
+            .getHttpClient()
+            .newBuilder()
+            .connectionPool(connectionPool)
+            .dispatcher(dispatcher);
+    if (config.connectTimeoutSeconds() > 0) {
+      builder.connectTimeout(Duration.ofSeconds(config.connectTimeoutSeconds()));
+    }
+    if (config.readTimeoutSeconds() > 0) {
+      builder.readTimeout(Duration.ofSeconds(config.readTimeoutSeconds()));
+    }
+    return builder.build();
+  }
+
+  private void registerMetrics(MeterRegistry meterRegistry) {
+    var connectionPool = commonHttpClient.connectionPool();
+    Gauge.builder(
+            CONNECTIONS_METRIC,
+            connectionPool,
+            pool -> pool.connectionCount() - pool.idleConnectionCount())
+        .tag("state", "leased")
+        .register(meterRegistry);
+    Gauge.builder(CONNECTIONS_METRIC, connectionPool, ConnectionPool::idleConnectionCount)
+        .tag("state", "idle")
+        .register(meterRegistry);
+    var dispatcher = commonHttpClient.dispatcher();
+    // Sam is called synchronously, so no calls are ever queued by the dispatcher; calls waiting for
+    // a connection are reflected in the leased connections instead.
+    Gauge.builder(CALLS_METRIC, dispatcher, Dispatcher::runningCallsCount)
+        .tag("state", "running")
+        .register(meterRegistry);
   }
 
   private ApiClient getApiClient(String accessToken) {
@@ -21,8 +94,10 @@ public class SamClient {
     return apiClient;
   }
 
+  // The client is created with the shared HTTP client, rather than creating its own and then
+  // replacing it.
   private ApiClient getApiClient() {
-    return new ApiClient().setBasePath(samConfig.basePath());
+    return new ApiClient(commonHttpClient).setBasePath(samConfig.basePath());
   }
 
   UsersApi usersApi(String accessToken) {
@@ -34,6 +109,6 @@ public class SamClient {
   }
 
   StatusApi statusApi() {
-    return new StatusApi(getApiClient());
+    return new StatusApi(unauthenticatedApiClient);
   }
 }
@@ -1,13 +1,27 @@
 package bio.terra.catalog.iam;
 
+import bio.terra.catalog.common.PermissionContext;
+import bio.terra.catalog.common.UpstreamMetrics;
+import bio.terra.catalog.config.SamActionCacheConfiguration;
 import bio.terra.catalog.config.SamConfiguration;
 import bio.terra.catalog.model.SystemStatusSystems;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.common.sam.SamRetry;
 import bio.terra.common.sam.exception.SamExceptionFactory;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.broadinstitute.dsde.workbench.client.sam.ApiException;
 import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
+import org.broadinstitute.dsde.workbench.client.sam.api.UsersApi;
 import org.broadinstitute.dsde.workbench.client.sam.model.SystemStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,38 +31,123 @@ import org.springframework.stereotype.Component;
 @Component
 public class SamService {
   private static final Logger logger = LoggerFactory.getLogger(SamService.class);
+  public static final String SYSTEM_NAME = "SAM";
+  static final String CACHE_NAME = "catalog.sam.actions";
+  static final String SUBJECT_CACHE_NAME = "catalog.sam.subjects";
+
   private final SamConfiguration samConfig;
   private final SamClient samClient;
 
   private final BearerToken bearerToken;
+  private final PermissionContext permissionContext;
+  private final SamActionCacheConfiguration cacheConfiguration;
+  private final UpstreamMetrics upstreamMetrics;
+  // A user's global actions, keyed by their token.
+  private final Cache<String, Set<SamAction>> globalActions;
+  // A user's subject ID, keyed by their token.
+  private final Cache<String, String> userSubjectIds;
 
   private static final String CATALOG_RESOURCE_TYPE = "catalog";
 
   @Autowired
-  public SamService(SamConfiguration samConfig, SamClient samClient, BearerToken bearerToken) {
+  public SamService(
+      SamConfiguration samConfig,
+      SamClient samClient,
+      BearerToken bearerToken,
+      PermissionContext permissionContext,
+      SamActionCacheConfiguration cacheConfiguration,
+      UpstreamMetrics upstreamMetrics,
+      MeterRegistry meterRegistry) {
+    this(
+        samConfig,
+        samClient,
+        bearerToken,
+        permissionContext,
+        cacheConfiguration,
+        upstreamMetrics,
+        meterRegistry,
+        Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  SamService(
+      SamConfiguration samConfig,
+      SamClient samClient,
+      BearerToken bearerToken,
+      PermissionContext permissionContext,
+      SamActionCacheConfiguration cacheConfiguration,
+      UpstreamMetrics upstreamMetrics,
+      MeterRegistry meterRegistry,
+      Ticker ticker) {
     this.samConfig = samConfig;
     this.samClient = samClient;
     this.bearerToken = bearerToken;
+    this.permissionContext = permissionContext;
+    this.cacheConfiguration = cacheConfiguration;
+    this.upstreamMetrics = upstreamMetrics;
+    globalActions =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(cacheConfiguration.ttlSeconds()))
+            .maximumSize(cacheConfiguration.maxSize())
+            .ticker(ticker)
+            .recordStats()
+            .build();
+    GuavaCacheMetrics.monitor(meterRegistry, globalActions, CACHE_NAME);
+    userSubjectIds =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(cacheConfiguration.ttlSeconds()))
+            .maximumSize(cacheConfiguration.maxSize())
+            .ticker(ticker)
+            .recordStats()
+            .build();
+    GuavaCacheMetrics.monitor(meterRegistry, userSubjectIds, SUBJECT_CACHE_NAME);
   }
 
   /**
    * Checks if a user has an action on all catalog resources.
    *
    * <p>This checks the action against the "global" catalog resource, which is used for global
-   * permission checks.
+   * permission checks. The user's actions are fetched once and cached, so checks for different
+   * actions share a Sam call.
    *
    * @param action sam action
    * @return true if the user has any actions on that resource; false otherwise.
    */
   public boolean hasGlobalAction(SamAction action) {
+    return permissionContext
+        .memoize(SYSTEM_NAME, "getGlobalActions", List.of(), this::getGlobalActions)
+        .contains(action);
+  }
+
+  private Set<SamAction> getGlobalActions() {
     String accessToken = bearerToken.getToken();
+    if (!cacheConfiguration.enabled()) {
+      return fetchGlobalActions(accessToken);
+    }
+    var actions = globalActions.getIfPresent(accessToken);
+    if (actions == null) {
+      actions = fetchGlobalActions(accessToken);
+      globalActions.put(accessToken, actions);
+    }
+    return actions;
+  }
+
+  // Only calls that reach Sam are recorded, so the metrics aren't skewed by cache hits.
+  private Set<SamAction> fetchGlobalActions(String accessToken) {
+    return upstreamMetrics.record(
+        SYSTEM_NAME, "getGlobalActions", () -> callGlobalActions(accessToken));
+  }
+
+  private Set<SamAction> callGlobalActions(String accessToken) {
     ResourcesApi resourceApi = samClient.resourcesApi(accessToken);
     try {
       return SamRetry.retry(
               () -> resourceApi.resourceActionsV2(CATALOG_RESOURCE_TYPE, samConfig.resourceId()))
           .stream()
           .map(SamAction::fromValue)
-          .anyMatch(action::equals);
+          // Ignore actions we don't recognize.
+          .filter(Objects::nonNull)
+          .collect(Collectors.toUnmodifiableSet());
     } catch (ApiException e) {
       throw SamExceptionFactory.create("Error checking resource permission in Sam", e);
     } catch (InterruptedException e) {
@@ -57,6 +156,47 @@ public class SamService {
     }
   }
 
+  /**
+   * Get the current user's Sam subject ID, which identifies them for longer than their token. A
+   * token always belongs to the same user, so the ID is cached by token like the user's actions.
+   *
+   * @return the user's subject ID
+   */
+  public String getUserSubjectId() {
+    return permissionContext.memoize(
+        SYSTEM_NAME, "getUserSubjectId", List.of(), this::getCachedUserSubjectId);
+  }
+
+  private String getCachedUserSubjectId() {
+    String accessToken = bearerToken.getToken();
+    if (!cacheConfiguration.enabled()) {
+      return fetchUserSubjectId(accessToken);
+    }
+    var subjectId = userSubjectIds.getIfPresent(accessToken);
+    if (subjectId == null) {
+      subjectId = fetchUserSubjectId(accessToken);
+      userSubjectIds.put(accessToken, subjectId);
+    }
+    return subjectId;
+  }
+
+  private String fetchUserSubjectId(String accessToken) {
+    return upstreamMetrics.record(
+        SYSTEM_NAME, "getUserStatusInfo", () -> callUserSubjectId(accessToken));
+  }
+
+  private String callUserSubjectId(String accessToken) {
+    UsersApi usersApi = samClient.usersApi(accessToken);
+    try {
+      return SamRetry.retry(usersApi::getUserStatusInfo).getUserSubjectId();
+    } catch (ApiException e) {
+      throw SamExceptionFactory.create("Error getting user info from Sam", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw SamExceptionFactory.create("Error getting user info from Sam", e);
+    }
+  }
+
   public SystemStatusSystems status() {
     // No access token needed since this is an unauthenticated API.
     try {
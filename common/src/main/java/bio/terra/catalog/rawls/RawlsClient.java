@@ -1,11 +1,14 @@
 package bio.terra.catalog.rawls;
 
+import bio.terra.catalog.common.PooledHttpClient;
+import bio.terra.catalog.common.StorageSystem;
 import bio.terra.catalog.config.RawlsConfiguration;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.rawls.api.EntitiesApi;
 import bio.terra.rawls.api.StatusApi;
 import bio.terra.rawls.api.WorkspacesApi;
 import bio.terra.rawls.client.ApiClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.ws.rs.client.Client;
 import org.springframework.stereotype.Component;
 
@@ -13,11 +16,18 @@ import org.springframework.stereotype.Component;
 public class RawlsClient {
   private final RawlsConfiguration rawlsConfig;
   private final BearerToken bearerToken;
-  private final Client commonHttpClient = new ApiClient().getHttpClient();
+  private final Client commonHttpClient;
 
-  public RawlsClient(RawlsConfiguration rawlsConfig, BearerToken bearerToken) {
+  public RawlsClient(
+      RawlsConfiguration rawlsConfig, BearerToken bearerToken, MeterRegistry meterRegistry) {
     this.rawlsConfig = rawlsConfig;
     this.bearerToken = bearerToken;
+    commonHttpClient =
+        PooledHttpClient.create(
+            StorageSystem.TERRA_WORKSPACE.name(),
+            new ApiClient().getHttpClient(),
+            rawlsConfig.client(),
+            meterRegistry);
   }
 
   private ApiClient getAuthApiClient() {
@@ -1,7 +1,12 @@
 package bio.terra.catalog.rawls;
 
+import bio.terra.catalog.common.PermissionContext;
+import bio.terra.catalog.common.RequestCoalescer;
+import bio.terra.catalog.common.StorageSystem;
 import bio.terra.catalog.common.StorageSystemInformation;
 import bio.terra.catalog.common.StorageSystemService;
+import bio.terra.catalog.common.UpstreamMetrics;
+import bio.terra.catalog.config.WorkspaceNameCacheConfiguration;
 import bio.terra.catalog.model.ColumnModel;
 import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.SystemStatusSystems;
@@ -16,15 +21,22 @@ import bio.terra.rawls.model.EntityTypeMetadata;
 import bio.terra.rawls.model.WorkspaceAccessLevel;
 import bio.terra.rawls.model.WorkspaceDetails;
 import bio.terra.rawls.model.WorkspaceName;
-import bio.terra.rawls.model.WorkspaceResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -33,8 +45,16 @@ public class RawlsService implements StorageSystemService {
   public static final List<String> ACCESS_LEVEL = List.of("accessLevel");
   public static final List<String> ACCESS_LEVEL_AND_ID =
       List.of("accessLevel", "workspace.workspaceId");
+  public static final List<String> WORKSPACE_NAME =
+      List.of("workspace.namespace", "workspace.name");
+  static final String CACHE_NAME = "catalog.rawls.workspace-names";
 
   private final RawlsClient rawlsClient;
+  private final RequestCoalescer requestCoalescer;
+  private final PermissionContext permissionContext;
+  private final WorkspaceNameCacheConfiguration cacheConfiguration;
+  private final Cache<String, WorkspaceName> workspaceNames;
+  private final UpstreamMetrics upstreamMetrics;
 
   private static final Map<WorkspaceAccessLevel, DatasetAccessLevel> ROLE_TO_DATASET_ACCESS =
       Map.of(
@@ -44,14 +64,49 @@ public class RawlsService implements StorageSystemService {
           WorkspaceAccessLevel.READER, DatasetAccessLevel.READER,
           WorkspaceAccessLevel.NO_ACCESS, DatasetAccessLevel.DISCOVERER);
 
-  public RawlsService(RawlsClient rawlsClient) {
+  public RawlsService(
+      RawlsClient rawlsClient,
+      RequestCoalescer requestCoalescer,
+      PermissionContext permissionContext,
+      WorkspaceNameCacheConfiguration cacheConfiguration,
+      UpstreamMetrics upstreamMetrics,
+      MeterRegistry meterRegistry) {
     this.rawlsClient = rawlsClient;
+    this.requestCoalescer = requestCoalescer;
+    this.permissionContext = permissionContext;
+    this.cacheConfiguration = cacheConfiguration;
+    this.upstreamMetrics = upstreamMetrics;
+    workspaceNames =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(cacheConfiguration.ttlSeconds()))
+            .maximumSize(cacheConfiguration.maxSize())
+            .recordStats()
+            .build();
+    GuavaCacheMetrics.monitor(meterRegistry, workspaceNames, CACHE_NAME);
+  }
+
+  private <T> T coalesce(String method, List<?> arguments, Supplier<T> call) {
+    return requestCoalescer.execute(StorageSystem.TERRA_WORKSPACE, method, arguments, call);
+  }
+
+  // Only calls that reach Rawls are recorded, so the metrics aren't skewed by cache hits.
+  private <T> T record(String method, UpstreamMetrics.Call<T, ApiException> call)
+      throws ApiException {
+    return upstreamMetrics.record(StorageSystem.TERRA_WORKSPACE.name(), method, call);
   }
 
   @Override
   public Map<String, StorageSystemInformation> getDatasets() {
+    return coalesce("getDatasets", List.of(), this::listWorkspaces);
+  }
+
+  private Map<String, StorageSystemInformation> listWorkspaces() {
     try {
-      return rawlsClient.workspacesApi().listWorkspaces(ACCESS_LEVEL_AND_ID).stream()
+      var workspaces =
+          record(
+              "listWorkspaces",
+              () -> rawlsClient.workspacesApi().listWorkspaces(ACCESS_LEVEL_AND_ID));
+      return workspaces.stream()
           .collect(
               Collectors.toMap(
                   workspaceListResponse -> workspaceListResponse.getWorkspace().getWorkspaceId(),
@@ -70,56 +125,110 @@ public class RawlsService implements StorageSystemService {
 
   @Override
   public DatasetAccessLevel getRole(String workspaceId) {
+    // The role is reused for the rest of the request, which includes getDataset.
+    return permissionContext.memoize(
+        StorageSystem.TERRA_WORKSPACE.name(),
+        "getRole",
+        List.of(workspaceId),
+        () -> coalesce("getRole", List.of(workspaceId), () -> getWorkspaceRole(workspaceId)));
+  }
+
+  private DatasetAccessLevel getWorkspaceRole(String workspaceId) {
     try {
       WorkspaceAccessLevel accessLevel =
-          rawlsClient.workspacesApi().getWorkspaceById(workspaceId, ACCESS_LEVEL).getAccessLevel();
+          record(
+                  "getWorkspaceById",
+                  () -> rawlsClient.workspacesApi().getWorkspaceById(workspaceId, ACCESS_LEVEL))
+              .getAccessLevel();
       return ROLE_TO_DATASET_ACCESS.get(accessLevel);
     } catch (ApiException e) {
       throw new RawlsException("Get workspace role failed", e);
     }
   }
 
-  private EntityQueryResponse entityQuery(String workspaceId, String tableName, int maxRows) {
+  /**
+   * Get a workspace's namespace and name, which the Rawls APIs other than the workspace APIs use
+   * to identify a workspace. A workspace's name can't be changed, so names are shared by every
+   * user. A workspace can be deleted and another created with the same name, so names are only
+   * kept for a short time, and a name is forgotten if Rawls can't find the workspace with it or
+   * won't let the user see it.
+   */
+  private WorkspaceName getWorkspaceName(String workspaceId) throws ApiException {
+    if (!cacheConfiguration.enabled()) {
+      return fetchWorkspaceName(workspaceId);
+    }
+    var workspaceName = workspaceNames.getIfPresent(workspaceId);
+    if (workspaceName == null) {
+      workspaceName = fetchWorkspaceName(workspaceId);
+      workspaceNames.put(workspaceId, workspaceName);
+    }
+    return workspaceName;
+  }
+
+  private WorkspaceName fetchWorkspaceName(String workspaceId) throws ApiException {
+    var response =
+        record(
+            "getWorkspaceById",
+            () -> rawlsClient.workspacesApi().getWorkspaceById(workspaceId, WORKSPACE_NAME));
+    return getWorkspaceName(response.getWorkspace());
+  }
+
+  // The workspace may have been deleted, and another created with the same name.
+  private void invalidateIfUnavailable(ApiException e, String workspaceId) {
+    if (e.getCode() == HttpStatus.NOT_FOUND.value()
+        || e.getCode() == HttpStatus.FORBIDDEN.value()) {
+      workspaceNames.invalidate(workspaceId);
+    }
+  }
+
+  private EntityQueryResponse entityQuery(
+      String workspaceId, String tableName, int page, int pageSize, List<String> fields) {
     try {
-      WorkspaceResponse response =
-          rawlsClient.workspacesApi().getWorkspaceById(workspaceId, List.of());
-      return rawlsClient
-          .entitiesApi()
-          .entityQuery(
-              response.getWorkspace().getNamespace(),
-              response.getWorkspace().getName(),
-              tableName,
-              null,
-              BigDecimal.valueOf(maxRows),
-              null,
-              null,
-              null,
-              null,
-              List.of(),
-              null,
-              null);
+      WorkspaceName workspaceName = getWorkspaceName(workspaceId);
+      return record(
+          "entityQuery",
+          () ->
+              rawlsClient
+                  .entitiesApi()
+                  .entityQuery(
+                      workspaceName.getNamespace(),
+                      workspaceName.getName(),
+                      tableName,
+                      BigDecimal.valueOf(page),
+                      BigDecimal.valueOf(pageSize),
+                      null,
+                      null,
+                      null,
+                      null,
+                      fields,
+                      null,
+                      null));
     } catch (ApiException e) {
+      invalidateIfUnavailable(e, workspaceId);
       throw new RawlsException("Entity Query failed for workspace %s".formatted(workspaceId), e);
     }
   }
 
   @Override
   public List<TableMetadata> getPreviewTables(String workspaceId) {
-    return toCatalogTables(entityMetadata(workspaceId));
+    return coalesce(
+        "getPreviewTables",
+        List.of(workspaceId),
+        () -> toCatalogTables(entityMetadata(workspaceId)));
   }
 
   private Map<String, EntityTypeMetadata> entityMetadata(String workspaceId) {
     try {
-      WorkspaceResponse response =
-          rawlsClient.workspacesApi().getWorkspaceById(workspaceId, List.of());
-      return rawlsClient
-          .entitiesApi()
-          .entityTypeMetadata(
-              response.getWorkspace().getNamespace(),
-              response.getWorkspace().getName(),
-              true,
-              null);
+      WorkspaceName workspaceName = getWorkspaceName(workspaceId);
+      return record(
+          "entityTypeMetadata",
+          () ->
+              rawlsClient
+                  .entitiesApi()
+                  .entityTypeMetadata(
+                      workspaceName.getNamespace(), workspaceName.getName(), true, null));
     } catch (ApiException e) {
+      invalidateIfUnavailable(e, workspaceId);
       throw new RawlsException("Entity Metadata failed for workspace %s".formatted(workspaceId), e);
     }
   }
@@ -145,18 +254,29 @@ public class RawlsService implements StorageSystemService {
         .name(workspaceDetails.getName());
   }
 
+  // The user must be able to read both workspaces. The cached names are shared by every user, so
+  // the workspaces are looked up with the user's token. Whether the user can write to the
+  // destination is only known once entities are copied.
   @Override
-  public void exportToWorkspace(String workspaceIdSource, String workspaceIdDest) {
+  public void validateExport(String workspaceIdSource, String workspaceIdDest) {
     try {
-      // build source name
-      WorkspaceDetails workspaceDetailsSource =
-          rawlsClient.workspacesApi().getWorkspaceById(workspaceIdSource, List.of()).getWorkspace();
-      WorkspaceName workspaceNameSource = getWorkspaceName(workspaceDetailsSource);
+      fetchWorkspaceName(workspaceIdSource);
+      fetchWorkspaceName(workspaceIdDest);
+    } catch (ApiException e) {
+      throw new RawlsException(
+          "Unable to export from workspace %s to workspace %s"
+              .formatted(workspaceIdSource, workspaceIdDest),
+          e);
+    }
+  }
 
-      // build destination name
-      WorkspaceDetails workspaceDetailsDest =
-          rawlsClient.workspacesApi().getWorkspaceById(workspaceIdDest, List.of()).getWorkspace();
-      WorkspaceName workspaceNameDest = getWorkspaceName(workspaceDetailsDest);
+  // Entities are written to the destination by name, so the names are looked up rather than
+  // taken from the cache, which may still have the name of a deleted workspace.
+  @Override
+  public void exportToWorkspace(String workspaceIdSource, String workspaceIdDest) {
+    try {
+      WorkspaceName workspaceNameSource = fetchWorkspaceName(workspaceIdSource);
+      WorkspaceName workspaceNameDest = fetchWorkspaceName(workspaceIdDest);
 
       // possible bug: empty entityType and entityNames copies all entities
       EntityCopyDefinition body =
@@ -165,7 +285,7 @@ public class RawlsService implements StorageSystemService {
               .destinationWorkspace(workspaceNameDest)
               .entityType("")
               .entityNames(List.of());
-      rawlsClient.entitiesApi().copyEntities(body, false);
+      record("copyEntities", () -> rawlsClient.entitiesApi().copyEntities(body, false));
     } catch (ApiException e) {
       String errorMsg =
           String.format(
@@ -176,24 +296,61 @@ public class RawlsService implements StorageSystemService {
   }
 
   @Override
-  public DatasetPreviewTable previewTable(String storageSourceId, String tableName, int maxRows) {
+  public DatasetPreviewTable previewTable(
+      String storageSourceId, String tableName, int offset, int maxRows, List<String> columns) {
+    return coalesce(
+        "previewTable",
+        Arrays.asList(storageSourceId, tableName, offset, maxRows, columns),
+        () -> queryPreviewTable(storageSourceId, tableName, offset, maxRows, columns));
+  }
+
+  private DatasetPreviewTable queryPreviewTable(
+      String storageSourceId, String tableName, int offset, int maxRows, List<String> columns) {
     Map<String, EntityTypeMetadata> entities = entityMetadata(storageSourceId);
     EntityTypeMetadata tableMetadata = entities.get(tableName);
     if (tableMetadata == null) {
       throw new NotFoundException("Table %s not found for dataset".formatted(tableName));
     }
+    // Rawls returns every attribute when no fields are given.
+    List<String> fields =
+        columns == null
+            ? List.of()
+            : tableMetadata.getAttributeNames().stream().filter(columns::contains).toList();
     return new DatasetPreviewTable()
-        .columns(convertTableMetadataToColumns(tableMetadata))
+        .columns(
+            convertTableMetadataToColumns(tableMetadata).stream()
+                .filter(column -> columns == null || columns.contains(column.getName()))
+                .toList())
         .rows(
-            entityQuery(storageSourceId, tableName, maxRows).getResults().stream()
-                .map(entity -> convertEntityToRow(entity, tableMetadata.getIdName()))
+            queryEntities(storageSourceId, tableName, offset, maxRows, fields).stream()
+                .map(entity -> convertEntityToRow(entity, tableMetadata.getIdName(), columns))
                 .toList());
   }
 
-  private static Object convertEntityToRow(Entity entity, String idName) {
+  /**
+   * Rawls returns entities a page at a time, so rows starting partway through a page are taken from
+   * that page and the next.
+   */
+  private List<Entity> queryEntities(
+      String workspaceId, String tableName, int offset, int maxRows, List<String> fields) {
+    int page = offset / maxRows + 1;
+    int skip = offset % maxRows;
+    EntityQueryResponse response = entityQuery(workspaceId, tableName, page, maxRows, fields);
+    List<Entity> results = new ArrayList<>(response.getResults());
+    if (skip > 0 && page < response.getResultMetadata().getFilteredPageCount()) {
+      results.addAll(entityQuery(workspaceId, tableName, page + 1, maxRows, fields).getResults());
+    }
+    return results.subList(
+        Math.min(skip, results.size()), Math.min(skip + maxRows, results.size()));
+  }
+
+  private static Object convertEntityToRow(Entity entity, String idName, List<String> columns) {
     Map<String, Object> att = entity.getAttributes();
     Map<String, Object> rows = new HashMap<>(att);
     rows.put(idName, entity.getName());
+    if (columns != null) {
+      rows.keySet().retainAll(columns);
+    }
     return rows;
   }
 
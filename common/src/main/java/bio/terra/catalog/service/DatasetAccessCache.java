@@ -0,0 +1,180 @@
+package bio.terra.catalog.service;
+
+import bio.terra.catalog.common.DetachedRequestAttributes;
+import bio.terra.catalog.common.StorageSystem;
+import bio.terra.catalog.common.StorageSystemInformation;
+import bio.terra.catalog.config.DatasetCacheConfiguration;
+import bio.terra.common.iam.BearerToken;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * A bounded, per-user cache of the objects that a storage system reports as visible to the user.
+ *
+ * <p>Listing datasets asks every storage system for all of the user's objects, which can take
+ * several seconds for users with thousands of workspaces or snapshots. The catalog UI lists
+ * datasets repeatedly during a session, so these results are kept for a short time, keyed by the
+ * user's token and the storage system.
+ *
+ * <p>If a refresh interval is configured, the cache serves stale results while revalidating: an
+ * entry older than the refresh interval is returned immediately and reloaded in the background. No
+ * entry is ever served once it is older than the TTL, which bounds how stale a result can be.
+ */
+@Component
+public class DatasetAccessCache {
+  private static final Logger logger = LoggerFactory.getLogger(DatasetAccessCache.class);
+  static final String CACHE_NAME = "catalog.dataset.access";
+
+  private final DatasetCacheConfiguration configuration;
+  private final BearerToken bearerToken;
+  private final Ticker ticker;
+  private final ExecutorService refreshExecutor;
+  private final Cache<Key, Entry> cache;
+  private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+  private final Counter refreshSuccess;
+  private final Counter refreshFailure;
+
+  private record Key(String token, StorageSystem storageSystem) {}
+
+  private record Entry(Map<String, StorageSystemInformation> datasets, long loadTimeNanos) {}
+
+  @Autowired
+  public DatasetAccessCache(
+      DatasetCacheConfiguration configuration,
+      BearerToken bearerToken,
+      MeterRegistry meterRegistry) {
+    this(
+        configuration,
+        bearerToken,
+        meterRegistry,
+        Ticker.systemTicker(),
+        Executors.newFixedThreadPool(
+            Math.max(1, configuration.refreshThreads()),
+            new ThreadFactoryBuilder()
+                .setNameFormat("dataset-access-refresh-%d")
+                .setDaemon(true)
+                .build()));
+  }
+
+  @VisibleForTesting
+  DatasetAccessCache(
+      DatasetCacheConfiguration configuration,
+      BearerToken bearerToken,
+      MeterRegistry meterRegistry,
+      Ticker ticker,
+      ExecutorService refreshExecutor) {
+    this.configuration = configuration;
+    this.bearerToken = bearerToken;
+    this.ticker = ticker;
+    this.refreshExecutor = refreshExecutor;
+    cache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(configuration.ttlSeconds()))
+            .maximumSize(configuration.maxSize())
+            .ticker(ticker)
+            .recordStats()
+            .build();
+    GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    refreshSuccess = meterRegistry.counter(CACHE_NAME + ".refresh", "result", "success");
+    refreshFailure = meterRegistry.counter(CACHE_NAME + ".refresh", "result", "failure");
+  }
+
+  @PreDestroy
+  void shutdown() {
+    refreshExecutor.shutdownNow();
+  }
+
+  /**
+   * Return the current user's objects in a storage system, calling the storage system only if
+   * there isn't an unexpired result for the user. Concurrent calls for the same user and storage
+   * system wait for a single call to the storage system.
+   *
+   * @param storageSystem the storage system being listed
+   * @param loader the call to the storage system to make on a cache miss
+   * @return a map of storage object ID to storage system information
+   */
+  public Map<String, StorageSystemInformation> get(
+      StorageSystem storageSystem, Supplier<Map<String, StorageSystemInformation>> loader) {
+    if (!configuration.enabled()) {
+      return loader.get();
+    }
+    var key = new Key(bearerToken.getToken(), storageSystem);
+    Entry entry;
+    try {
+      entry = cache.get(key, () -> load(loader));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      // Rethrow the storage system's exception so it's reported the same as an uncached call.
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+    // An entry that was just loaded never needs a refresh.
+    if (needsRefresh(entry)) {
+      refresh(key, loader);
+    }
+    return entry.datasets();
+  }
+
+  private Entry load(Supplier<Map<String, StorageSystemInformation>> loader) {
+    long loadTimeNanos = ticker.read();
+    return new Entry(loader.get(), loadTimeNanos);
+  }
+
+  private boolean needsRefresh(Entry entry) {
+    int refreshAfterSeconds = configuration.refreshAfterSeconds();
+    long ageNanos = ticker.read() - entry.loadTimeNanos();
+    return refreshAfterSeconds > 0 && ageNanos >= TimeUnit.SECONDS.toNanos(refreshAfterSeconds);
+  }
+
+  private void refresh(Key key, Supplier<Map<String, StorageSystemInformation>> loader) {
+    // Only one refresh per user and storage system is run at a time.
+    if (!refreshing.add(key)) {
+      return;
+    }
+    // The refresh can finish after this request has completed, so it runs with a detached copy of
+    // the request's attributes. This makes the user's token available to the storage system.
+    var requestAttributes = DetachedRequestAttributes.capture();
+    try {
+      refreshExecutor.execute(
+          () ->
+              requestAttributes.run(
+                  () -> {
+                    try {
+                      cache.put(key, load(loader));
+                      refreshSuccess.increment();
+                    } catch (RuntimeException e) {
+                      // Keep serving the stale entry until it expires.
+                      logger.warn("Refresh of {} datasets failed", key.storageSystem(), e);
+                      refreshFailure.increment();
+                    } finally {
+                      refreshing.remove(key);
+                    }
+                  }));
+    } catch (RejectedExecutionException e) {
+      refreshing.remove(key);
+      logger.warn("Unable to schedule refresh of {} datasets", key.storageSystem(), e);
+    }
+  }
+}
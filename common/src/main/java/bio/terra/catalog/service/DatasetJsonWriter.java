@@ -0,0 +1,107 @@
+package bio.terra.catalog.service;
+
+import bio.terra.catalog.common.StorageSystemInformation;
+import bio.terra.catalog.service.dataset.Dataset;
+import bio.terra.catalog.service.dataset.RawDataset;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Writes catalog entries as they appear in a dataset listing, with the fields from the storage
+ * system added, without copying their metadata.
+ */
+final class DatasetJsonWriter {
+  static final String ID_PROPERTY_NAME = "id";
+  static final String ACCESS_LEVEL_PROPERTY_NAME = "accessLevel";
+
+  private static final Set<String> COMPUTED_PROPERTY_NAMES =
+      Set.of(ID_PROPERTY_NAME, ACCESS_LEVEL_PROPERTY_NAME);
+
+  private DatasetJsonWriter() {}
+
+  static String requestAccessUrl(String phsId) {
+    return String.format(
+        "https://www.ncbi.nlm.nih.gov/projects/gap/cgi-bin/study.cgi?study_id=%s", phsId);
+  }
+
+  /** Write a catalog entry from the catalog index, one metadata field at a time. */
+  static void write(JsonGenerator generator, Dataset dataset, StorageSystemInformation information)
+      throws IOException {
+    var metadata = dataset.metadata();
+    generator.writeStartObject();
+    for (var fields = metadata.fields(); fields.hasNext(); ) {
+      var field = fields.next();
+      String name = field.getKey();
+      if (!COMPUTED_PROPERTY_NAMES.contains(name)
+          && !(information.phsId() != null && name.equals(DatasetService.PHS_ID_PROPERTY_NAME))) {
+        generator.writeFieldName(name);
+        generator.writeTree(field.getValue());
+      }
+    }
+    if (information.phsId() != null) {
+      generator.writeStringField(DatasetService.PHS_ID_PROPERTY_NAME, information.phsId());
+      if (!metadata.has(DatasetService.REQUEST_ACCESS_URL_PROPERTY_NAME)) {
+        generator.writeStringField(
+            DatasetService.REQUEST_ACCESS_URL_PROPERTY_NAME,
+            requestAccessUrl(information.phsId()));
+      }
+    }
+    generator.writeStringField(
+        ACCESS_LEVEL_PROPERTY_NAME, String.valueOf(information.datasetAccessLevel()));
+    generator.writeStringField(ID_PROPERTY_NAME, dataset.id().toValue());
+    generator.writeEndObject();
+  }
+
+  /**
+   * Write a catalog entry read from the database. Its metadata text is written as is, with the
+   * storage system fields appended before its closing brace.
+   */
+  static void write(
+      JsonGenerator generator, RawDataset dataset, StorageSystemInformation information)
+      throws IOException {
+    String metadata = dataset.metadata() == null ? "{}" : dataset.metadata();
+    int end = metadata.lastIndexOf('}');
+    var json = new StringBuilder(metadata.length() + 128).append(metadata, 0, end);
+    boolean first = metadata.substring(0, end).trim().equals("{");
+    if (information.phsId() != null) {
+      first =
+          appendField(
+              json, first, DatasetService.PHS_ID_PROPERTY_NAME, quote(information.phsId()));
+      if (!dataset.hasRequestAccessUrl()) {
+        first =
+            appendField(
+                json,
+                first,
+                DatasetService.REQUEST_ACCESS_URL_PROPERTY_NAME,
+                quote(requestAccessUrl(information.phsId())));
+      }
+    } else if (dataset.phsId() != null) {
+      first = appendField(json, first, DatasetService.PHS_ID_PROPERTY_NAME, dataset.phsId());
+    }
+    first =
+        appendField(
+            json,
+            first,
+            ACCESS_LEVEL_PROPERTY_NAME,
+            quote(String.valueOf(information.datasetAccessLevel())));
+    appendField(json, first, ID_PROPERTY_NAME, quote(dataset.id().toValue()));
+    generator.writeRawValue(json.append('}').toString());
+  }
+
+  // Append a field to an object that is being written, and return false to show that the next
+  // field isn't the object's first.
+  private static boolean appendField(
+      StringBuilder json, boolean first, String name, String value) {
+    if (!first) {
+      json.append(',');
+    }
+    json.append(quote(name)).append(':').append(value);
+    return false;
+  }
+
+  private static String quote(String value) {
+    return TextNode.valueOf(value).toString();
+  }
+}
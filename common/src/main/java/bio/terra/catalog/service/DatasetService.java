@@ -1,9 +1,10 @@
 package bio.terra.catalog.service;
 
-import bio.terra.catalog.common.RequestContextCopier;
+import bio.terra.catalog.common.FanOutExecutor;
 import bio.terra.catalog.common.StorageSystem;
 import bio.terra.catalog.common.StorageSystemInformation;
 import bio.terra.catalog.common.StorageSystemService;
+import bio.terra.catalog.config.DatasetListConfiguration;
 import bio.terra.catalog.datarepo.DatarepoException;
 import bio.terra.catalog.datarepo.DatarepoService;
 import bio.terra.catalog.iam.SamAction;
@@ -11,20 +12,31 @@ import bio.terra.catalog.iam.SamService;
 import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.DatasetPreviewTablesResponse;
 import bio.terra.catalog.model.DatasetsListResponse;
+import bio.terra.catalog.model.ExportJobResponse;
 import bio.terra.catalog.rawls.RawlsService;
+import bio.terra.catalog.service.dataset.CatalogIndex;
 import bio.terra.catalog.service.dataset.Dataset;
 import bio.terra.catalog.service.dataset.DatasetAccessLevel;
-import bio.terra.catalog.service.dataset.DatasetDao;
+import bio.terra.catalog.service.dataset.DatasetCursor;
 import bio.terra.catalog.service.dataset.DatasetId;
+import bio.terra.catalog.service.export.exception.ExportJobNotFoundException;
+import bio.terra.common.exception.BadRequestException;
 import bio.terra.common.exception.ForbiddenException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
-import java.util.Arrays;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -43,10 +55,16 @@ public class DatasetService {
   private final RawlsService rawlsService;
   private final SamService samService;
   private final JsonValidationService jsonValidationService;
-  private final DatasetDao datasetDao;
+  private final CatalogIndex catalogIndex;
   private final StorageSystemService externalService;
+  private final DatasetAccessCache datasetAccessCache;
+  private final DatasetListConfiguration listConfiguration;
+  private final FanOutExecutor fanOutExecutor;
+  private final ExportJobService exportJobService;
 
-  private static final int MAX_ROWS = 30;
+  private static final int DEFAULT_PREVIEW_ROWS = 30;
+  private static final int MAX_PREVIEW_ROWS = 1000;
+  private static final int MAX_PAGE_SIZE = 1000;
 
   public DatasetService(
       DatarepoService datarepoService,
@@ -54,13 +72,21 @@ public class DatasetService {
       ExternalSystemService externalService,
       SamService samService,
       JsonValidationService jsonValidationService,
-      DatasetDao datasetDao) {
+      CatalogIndex catalogIndex,
+      DatasetAccessCache datasetAccessCache,
+      DatasetListConfiguration listConfiguration,
+      FanOutExecutor fanOutExecutor,
+      @Lazy ExportJobService exportJobService) {
     this.datarepoService = datarepoService;
     this.rawlsService = rawlsService;
     this.externalService = externalService;
     this.samService = samService;
     this.jsonValidationService = jsonValidationService;
-    this.datasetDao = datasetDao;
+    this.catalogIndex = catalogIndex;
+    this.datasetAccessCache = datasetAccessCache;
+    this.listConfiguration = listConfiguration;
+    this.fanOutExecutor = fanOutExecutor;
+    this.exportJobService = exportJobService;
   }
 
   private StorageSystemService getService(StorageSystem system) {
@@ -75,22 +101,37 @@ public class DatasetService {
     return getService(dataset.storageSystem());
   }
 
-  private class DatasetResponse {
+  private Map<String, StorageSystemInformation> getDatasets(StorageSystem system) {
+    // External datasets are read from the catalog database and are the same for every user, so
+    // only the remote storage systems' results are cached.
+    if (system == StorageSystem.EXTERNAL) {
+      return externalService.getDatasets();
+    }
+    return datasetAccessCache.get(system, () -> getService(system).getDatasets());
+  }
+
+  @VisibleForTesting
+  static class DatasetResponse {
     private final Dataset dataset;
     private final StorageSystemInformation storageSystemInformation;
+    private final boolean projected;
 
-    public DatasetResponse(Dataset dataset, StorageSystemInformation storageSystemInformation) {
+    DatasetResponse(
+        Dataset dataset, StorageSystemInformation storageSystemInformation, boolean projected) {
       this.dataset = dataset;
       this.storageSystemInformation = storageSystemInformation;
+      this.projected = projected;
     }
 
-    private Object convertToObject() {
-      ObjectNode node = dataset.metadata().deepCopy();
+    Object convertToObject() {
+      // A projected dataset's metadata is a new object that only holds the requested fields, so
+      // only the full metadata needs to be copied before it's modified.
+      ObjectNode node = projected ? dataset.metadata() : dataset.metadata().deepCopy();
       addPhsProperties(node);
       node.set(
-          "accessLevel",
+          DatasetJsonWriter.ACCESS_LEVEL_PROPERTY_NAME,
           TextNode.valueOf(String.valueOf(storageSystemInformation.datasetAccessLevel())));
-      node.set("id", TextNode.valueOf(dataset.id().toValue()));
+      node.set(DatasetJsonWriter.ID_PROPERTY_NAME, TextNode.valueOf(dataset.id().toValue()));
       return node;
     }
 
@@ -101,45 +142,177 @@ public class DatasetService {
           node.set(
               REQUEST_ACCESS_URL_PROPERTY_NAME,
               TextNode.valueOf(
-                  String.format(
-                      "https://www.ncbi.nlm.nih.gov/projects/gap/cgi-bin/study.cgi?study_id=%s",
-                      storageSystemInformation.phsId())));
+                  DatasetJsonWriter.requestAccessUrl(storageSystemInformation.phsId())));
         }
       }
     }
   }
 
+  /**
+   * The metadata fields to read for the fields requested by a client. A catalog entry's request
+   * access URL overrides the one derived from its phs ID, so it's always read.
+   *
+   * @param fields the requested fields, or null for all fields
+   * @return the metadata fields to read, or null to read all fields
+   */
+  private static Set<String> metadataFields(List<String> fields) {
+    if (fields == null) {
+      return null;
+    }
+    var metadataFields = new HashSet<>(fields);
+    metadataFields.add(REQUEST_ACCESS_URL_PROPERTY_NAME);
+    return metadataFields;
+  }
+
   public DatasetsListResponse listDatasets() {
-    var systemsAndInfo =
-        RequestContextCopier.parallelWithRequest(Arrays.stream(StorageSystem.values()))
-            .collect(
-                Collectors.toMap(Function.identity(), system -> getService(system).getDatasets()));
+    return listDatasets(null, null, null);
+  }
+
+  /**
+   * List the datasets visible to the current user.
+   *
+   * @param limit the maximum number of datasets to return; if null, all datasets are returned
+   * @param cursor the {@code next} value from the previous page, or null for the first page
+   * @param fields the top-level metadata fields to return, or null for all fields; the dataset's
+   *     ID, access level and phs properties are always returned
+   */
+  public DatasetsListResponse listDatasets(Integer limit, String cursor, List<String> fields) {
+    if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+      throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    var after = cursor == null ? DatasetCursor.START : DatasetCursor.decode(cursor);
+    var metadataFields = metadataFields(fields);
+    var fanOut = getAllDatasets();
+    var systemsAndInfo = fanOut.results();
+    // Admin users can see every catalog entry, so no IDs are needed to find them.
+    Map<StorageSystem, Collection<String>> systemsAndIds =
+        samService.hasGlobalAction(SamAction.READ_ANY_METADATA)
+            ? null
+            : systemsAndInfo.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().keySet()));
+
+    var degradedSystems = degradedSystems(fanOut.failed());
+
+    if (listConfiguration.streaming() && limit == null && cursor == null && fields == null) {
+      var streamingResponse =
+          new StreamingDatasetsListResponse(
+              generator -> writeDatasets(generator, systemsAndIds, systemsAndInfo));
+      streamingResponse.setDegradedSystems(degradedSystems);
+      return streamingResponse;
+    }
 
     List<Dataset> datasets;
-    if (samService.hasGlobalAction(SamAction.READ_ANY_METADATA)) {
-      datasets = datasetDao.listAllDatasets();
+    if (systemsAndIds == null) {
+      datasets =
+          limit == null && cursor == null
+              ? catalogIndex.listAllDatasets(metadataFields)
+              : catalogIndex.listAllDatasets(after, pageSize(limit), metadataFields);
     } else {
       datasets =
-          datasetDao.find(
-              systemsAndInfo.entrySet().stream()
-                  .collect(
-                      Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().keySet())));
+          limit == null && cursor == null
+              ? catalogIndex.find(systemsAndIds, metadataFields)
+              : catalogIndex.find(systemsAndIds, after, pageSize(limit), metadataFields);
     }
     var response = new DatasetsListResponse();
+    response.setDegradedSystems(degradedSystems);
+    // One more dataset than the limit is read to tell whether there's another page.
+    if (limit != null && datasets.size() > limit) {
+      datasets = datasets.subList(0, limit);
+      response.setNext(DatasetCursor.after(datasets.get(limit - 1)).encode());
+    }
     response.setResult(
         datasets.stream()
             .map(
                 dataset ->
                     new DatasetResponse(
                         dataset,
-                        systemsAndInfo
-                            .getOrDefault(dataset.storageSystem(), Map.of())
-                            .getOrDefault(dataset.storageSourceId(), DEFAULT_INFORMATION)))
+                        getInformation(
+                            systemsAndInfo, dataset.storageSystem(), dataset.storageSourceId()),
+                        metadataFields != null))
             .map(DatasetResponse::convertToObject)
             .toList());
     return response;
   }
 
+  /**
+   * Get the datasets visible to the user from every storage system. When partial results are
+   * enabled, the storage systems that fail or miss their deadline are returned as failed, and an
+   * admin sees their datasets with the default information while other users don't see them.
+   */
+  private FanOutExecutor.PartialResults<StorageSystem, Map<String, StorageSystemInformation>>
+      getAllDatasets() {
+    var systems = List.of(StorageSystem.values());
+    if (!listConfiguration.partialResults()) {
+      return new FanOutExecutor.PartialResults<>(
+          fanOutExecutor.map("getDatasets", systems, this::getDatasets), Set.of());
+    }
+    return fanOutExecutor.mapPartial(
+        "getDatasets", systems, this::getDatasets, this::listDeadline);
+  }
+
+  private Duration listDeadline(StorageSystem system) {
+    var deadlineSeconds = listConfiguration.deadlineSeconds();
+    if (deadlineSeconds == null || !deadlineSeconds.containsKey(system)) {
+      return null;
+    }
+    return Duration.ofSeconds(deadlineSeconds.get(system));
+  }
+
+  private static List<bio.terra.catalog.model.StorageSystem> degradedSystems(
+      Set<StorageSystem> failedSystems) {
+    return failedSystems.isEmpty()
+        ? null
+        : failedSystems.stream().map(StorageSystem::toModel).toList();
+  }
+
+  private static StorageSystemInformation getInformation(
+      Map<StorageSystem, Map<String, StorageSystemInformation>> systemsAndInfo,
+      StorageSystem storageSystem,
+      String storageSourceId) {
+    return systemsAndInfo
+        .getOrDefault(storageSystem, Map.of())
+        .getOrDefault(storageSourceId, DEFAULT_INFORMATION);
+  }
+
+  /**
+   * Write the datasets in a listing as they're read, without building the listing in memory. When
+   * the catalog index isn't loaded, each row's metadata is written as the text read from the
+   * database, without being parsed.
+   */
+  private void writeDatasets(
+      JsonGenerator generator,
+      Map<StorageSystem, Collection<String>> systemsAndIds,
+      Map<StorageSystem, Map<String, StorageSystemInformation>> systemsAndInfo)
+      throws IOException {
+    if (catalogIndex.isLoaded()) {
+      var datasets =
+          systemsAndIds == null ? catalogIndex.listAllDatasets() : catalogIndex.find(systemsAndIds);
+      for (Dataset dataset : datasets) {
+        DatasetJsonWriter.write(
+            generator,
+            dataset,
+            getInformation(systemsAndInfo, dataset.storageSystem(), dataset.storageSourceId()));
+      }
+      return;
+    }
+    catalogIndex.streamDatasets(
+        systemsAndIds,
+        dataset -> {
+          try {
+            DatasetJsonWriter.write(
+                generator,
+                dataset,
+                getInformation(systemsAndInfo, dataset.storageSystem(), dataset.storageSourceId()));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  private static int pageSize(Integer limit) {
+    return limit == null ? Integer.MAX_VALUE : limit + 1;
+  }
+
   private void ensureActionPermission(Dataset dataset, SamAction action) {
     // Ensure that the current user has permission to perform this action. The current user
     // can either have permission granted by the storage system that owns the dataset, or if
@@ -152,13 +325,21 @@ public class DatasetService {
   }
 
   public void deleteMetadata(DatasetId datasetId) {
-    var dataset = datasetDao.retrieve(datasetId);
+    var dataset = catalogIndex.retrieve(datasetId);
     ensureActionPermission(dataset, SamAction.DELETE_ANY_METADATA);
-    datasetDao.delete(dataset);
+    catalogIndex.delete(dataset);
   }
 
-  public String getMetadata(DatasetId datasetId) {
-    var dataset = datasetDao.retrieve(datasetId);
+  /**
+   * Return a dataset's catalog entry.
+   *
+   * @param datasetId the ID of the dataset
+   * @param fields the top-level metadata fields to return, or null for all fields; the dataset's
+   *     ID, access level and phs properties are always returned
+   */
+  public String getMetadata(DatasetId datasetId, List<String> fields) {
+    var metadataFields = metadataFields(fields);
+    var dataset = catalogIndex.retrieve(datasetId, metadataFields);
     ensureActionPermission(dataset, SamAction.READ_ANY_METADATA);
     StorageSystemInformation information;
     try {
@@ -166,14 +347,16 @@ public class DatasetService {
     } catch (DatarepoException e) {
       information = DEFAULT_INFORMATION;
     }
-    return new DatasetResponse(dataset, information).convertToObject().toString();
+    return new DatasetResponse(dataset, information, metadataFields != null)
+        .convertToObject()
+        .toString();
   }
 
   public void updateMetadata(DatasetId datasetId, ObjectNode metadata) {
     jsonValidationService.validateMetadata(metadata);
-    var dataset = datasetDao.retrieve(datasetId);
+    var dataset = catalogIndex.retrieve(datasetId);
     ensureActionPermission(dataset, SamAction.UPDATE_ANY_METADATA);
-    datasetDao.update(dataset.withMetadata(metadata));
+    catalogIndex.update(dataset.withMetadata(metadata));
   }
 
   public DatasetId upsertDataset(
@@ -181,22 +364,70 @@ public class DatasetService {
     jsonValidationService.validateMetadata(metadata);
     var dataset = new Dataset(storageSourceId, storageSystem, metadata);
     ensureActionPermission(dataset, SamAction.CREATE_METADATA);
-    return datasetDao.upsert(dataset).id();
+    return catalogIndex.upsert(dataset).id();
   }
 
   public DatasetPreviewTablesResponse listDatasetPreviewTables(DatasetId datasetId) {
-    var dataset = datasetDao.retrieve(datasetId);
+    var dataset = catalogIndex.retrieve(datasetId);
     var tableMetadataList = getService(dataset).getPreviewTables(dataset.storageSourceId());
     return new DatasetPreviewTablesResponse().tables(tableMetadataList);
   }
 
   public DatasetPreviewTable getDatasetPreview(DatasetId datasetId, String tableName) {
-    var dataset = datasetDao.retrieve(datasetId);
-    return getService(dataset).previewTable(dataset.storageSourceId(), tableName, MAX_ROWS);
+    return getDatasetPreview(datasetId, tableName, null, null, null);
   }
 
-  public void exportDataset(DatasetId datasetId, UUID workspaceId) {
-    var dataset = datasetDao.retrieve(datasetId);
-    getService(dataset).exportToWorkspace(dataset.storageSourceId(), workspaceId.toString());
+  /**
+   * Return a page of rows from one of a dataset's tables.
+   *
+   * @param offset the number of rows to skip, or null to start at the first row
+   * @param limit the maximum number of rows to return, or null for the default number of rows
+   * @param columns the columns to return, or null or empty for all columns
+   */
+  public DatasetPreviewTable getDatasetPreview(
+      DatasetId datasetId, String tableName, Integer offset, Integer limit, List<String> columns) {
+    if (offset != null && offset < 0) {
+      throw new BadRequestException("offset must not be negative");
+    }
+    if (limit != null && (limit < 1 || limit > MAX_PREVIEW_ROWS)) {
+      throw new BadRequestException("limit must be between 1 and " + MAX_PREVIEW_ROWS);
+    }
+    var dataset = catalogIndex.retrieve(datasetId);
+    return getService(dataset)
+        .previewTable(
+            dataset.storageSourceId(),
+            tableName,
+            offset == null ? 0 : offset,
+            limit == null ? DEFAULT_PREVIEW_ROWS : limit,
+            columns == null || columns.isEmpty() ? null : columns);
+  }
+
+  /**
+   * Start exporting a dataset into a workspace. The storage system checks that the export can be
+   * made before it's started, and the export then runs in the background. Its progress is returned
+   * by {@link #getExportJob}.
+   */
+  public ExportJobResponse exportDataset(DatasetId datasetId, UUID workspaceId) {
+    var dataset = catalogIndex.retrieve(datasetId);
+    var service = getService(dataset);
+    service.validateExport(dataset.storageSourceId(), workspaceId.toString());
+    return exportJobService
+        .submit(
+            datasetId,
+            workspaceId,
+            () -> service.exportToWorkspace(dataset.storageSourceId(), workspaceId.toString()))
+        .toModel();
+  }
+
+  /**
+   * Get the progress of an export started by the current user. A job interrupted by a restart of
+   * the service is marked as failed, and the export must be started again.
+   */
+  public ExportJobResponse getExportJob(DatasetId datasetId, UUID jobId) {
+    var job = exportJobService.retrieve(jobId);
+    if (!job.datasetId().equals(datasetId)) {
+      throw new ExportJobNotFoundException("Export job not found for " + jobId);
+    }
+    return job.toModel();
   }
 }
@@ -0,0 +1,54 @@
+package bio.terra.catalog.service;
+
+import bio.terra.catalog.config.ExportJobConfiguration;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically runs the export job heartbeat, which records that this instance's jobs are still
+ * running and fails the jobs of instances that have stopped.
+ *
+ * <p>Only the web application runs exports, so the heartbeat isn't started by the admin CLI.
+ */
+@Component
+@ConditionalOnWebApplication
+public class ExportJobHeartbeat {
+  // Used when the configuration doesn't set a value.
+  private static final int DEFAULT_HEARTBEAT_SECONDS = 30;
+
+  private final ExportJobService exportJobService;
+  private final int heartbeatSeconds;
+  private final ScheduledExecutorService scheduler;
+
+  public ExportJobHeartbeat(
+      ExportJobService exportJobService, ExportJobConfiguration configuration) {
+    this.exportJobService = exportJobService;
+    heartbeatSeconds =
+        configuration.heartbeatSeconds() > 0
+            ? configuration.heartbeatSeconds()
+            : DEFAULT_HEARTBEAT_SECONDS;
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("export-job-heartbeat")
+                .setDaemon(true)
+                .build());
+  }
+
+  @PostConstruct
+  void start() {
+    scheduler.scheduleWithFixedDelay(
+        exportJobService::heartbeat, 0, heartbeatSeconds, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+}
@@ -0,0 +1,211 @@
+package bio.terra.catalog.service;
+
+import bio.terra.catalog.common.DetachedRequestAttributes;
+import bio.terra.catalog.config.ExportJobConfiguration;
+import bio.terra.catalog.iam.SamService;
+import bio.terra.catalog.service.dataset.DatasetId;
+import bio.terra.catalog.service.export.ExportJob;
+import bio.terra.catalog.service.export.ExportJobDao;
+import bio.terra.catalog.service.export.ExportJobStatus;
+import bio.terra.catalog.service.export.exception.ExportJobNotFoundException;
+import bio.terra.catalog.service.export.exception.ExportJobRejectedException;
+import bio.terra.common.iam.BearerToken;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs exports of datasets into workspaces in the background, and records their progress in the
+ * database.
+ *
+ * <p>Copying a large dataset can take minutes, so an export is recorded as a job and run on a
+ * bounded pool of threads, and the request that started it returns immediately. When the pool's
+ * queue is full, new exports are refused. Each export runs with a detached copy of the request's
+ * attributes, so the storage system is called with the user's token. A job records the Sam subject
+ * of the user who started it, and is only returned to that user.
+ *
+ * <p>Every instance of the service periodically records that its unfinished jobs are still being
+ * run, see {@link ExportJobHeartbeat}. A job that hasn't been updated for longer than the
+ * configured time was being run by an instance that has stopped, and is marked as failed by
+ * whichever instance finds it. The user's token isn't stored, so interrupted exports can't be
+ * resumed and must be started again.
+ *
+ * <p>The service is created when it's first used, so the admin CLI, which scans the same
+ * components, doesn't start the worker pool.
+ */
+@Service
+@Lazy
+public class ExportJobService {
+  private static final Logger logger = LoggerFactory.getLogger(ExportJobService.class);
+
+  static final String METRIC_NAME = "catalog.export-jobs";
+  static final String REJECTED_MESSAGE = "Too many exports are in progress, try again later";
+  static final String INTERRUPTED_MESSAGE = "The export was interrupted, start it again";
+
+  // Used when the configuration doesn't set a value.
+  private static final int DEFAULT_THREADS = 4;
+  private static final int DEFAULT_QUEUE_SIZE = 100;
+  private static final int DEFAULT_STALE_AFTER_SECONDS = 300;
+
+  private final ExportJobDao exportJobDao;
+  private final BearerToken bearerToken;
+  private final SamService samService;
+  private final ExecutorService executor;
+  private final Duration staleAfter;
+  // The jobs this instance has queued or is running.
+  private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+  private final Counter succeeded;
+  private final Counter failed;
+
+  @Autowired
+  public ExportJobService(
+      ExportJobDao exportJobDao,
+      ExportJobConfiguration configuration,
+      BearerToken bearerToken,
+      SamService samService,
+      MeterRegistry meterRegistry) {
+    this(
+        exportJobDao,
+        configuration,
+        bearerToken,
+        samService,
+        meterRegistry,
+        createThreadPool(configuration, meterRegistry));
+  }
+
+  @VisibleForTesting
+  ExportJobService(
+      ExportJobDao exportJobDao,
+      ExportJobConfiguration configuration,
+      BearerToken bearerToken,
+      SamService samService,
+      MeterRegistry meterRegistry,
+      ExecutorService executor) {
+    this.exportJobDao = exportJobDao;
+    this.bearerToken = bearerToken;
+    this.samService = samService;
+    this.executor = executor;
+    staleAfter =
+        Duration.ofSeconds(
+            configuration.staleAfterSeconds() > 0
+                ? configuration.staleAfterSeconds()
+                : DEFAULT_STALE_AFTER_SECONDS);
+    succeeded = meterRegistry.counter(METRIC_NAME + ".completed", "result", "success");
+    failed = meterRegistry.counter(METRIC_NAME + ".completed", "result", "failure");
+  }
+
+  private static ExecutorService createThreadPool(
+      ExportJobConfiguration configuration, MeterRegistry meterRegistry) {
+    int threads = configuration.threads() > 0 ? configuration.threads() : DEFAULT_THREADS;
+    int queueSize = configuration.queueSize() > 0 ? configuration.queueSize() : DEFAULT_QUEUE_SIZE;
+    var pool =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(queueSize),
+            new ThreadFactoryBuilder().setNameFormat("export-job-%d").setDaemon(true).build());
+    new ExecutorServiceMetrics(pool, METRIC_NAME, Tags.empty()).bindTo(meterRegistry);
+    return pool;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    // Jobs that are interrupted here are failed by another instance once they're stale.
+    executor.shutdownNow();
+  }
+
+  /**
+   * Record that this instance's jobs are still running, and fail the jobs that other instances
+   * stopped running.
+   */
+  void heartbeat() {
+    try {
+      if (!activeJobs.isEmpty()) {
+        exportJobDao.touch(Set.copyOf(activeJobs));
+      }
+      int interrupted =
+          exportJobDao.failStale(Instant.now().minus(staleAfter), INTERRUPTED_MESSAGE);
+      if (interrupted > 0) {
+        logger.warn("Failed {} interrupted export jobs", interrupted);
+      }
+    } catch (RuntimeException e) {
+      // A failed heartbeat mustn't stop later ones from running.
+      logger.warn("Unable to update export jobs", e);
+    }
+  }
+
+  /**
+   * Start an export in the background.
+   *
+   * @param datasetId the dataset being exported
+   * @param workspaceId the workspace the dataset is exported into
+   * @param export the call to the storage system that copies the dataset
+   * @return the queued job
+   * @throws ExportJobRejectedException if too many exports are waiting to run
+   */
+  public ExportJob submit(DatasetId datasetId, UUID workspaceId, Runnable export) {
+    // The token is a request scope bean, and must be created before the request's attributes are
+    // captured for it to be available to the export.
+    bearerToken.getToken();
+    var requestAttributes = DetachedRequestAttributes.capture();
+    var job = exportJobDao.create(datasetId, workspaceId, samService.getUserSubjectId());
+    activeJobs.add(job.id());
+    try {
+      executor.execute(() -> requestAttributes.run(() -> run(job.id(), export)));
+    } catch (RejectedExecutionException e) {
+      activeJobs.remove(job.id());
+      exportJobDao.updateStatus(job.id(), ExportJobStatus.FAILED, REJECTED_MESSAGE);
+      throw new ExportJobRejectedException(REJECTED_MESSAGE);
+    }
+    return job;
+  }
+
+  private void run(UUID jobId, Runnable export) {
+    try {
+      exportJobDao.updateStatus(jobId, ExportJobStatus.RUNNING, null);
+      export.run();
+      exportJobDao.updateStatus(jobId, ExportJobStatus.SUCCEEDED, null);
+      succeeded.increment();
+    } catch (RuntimeException e) {
+      logger.warn("Export job {} failed", jobId, e);
+      failed.increment();
+      exportJobDao.updateStatus(jobId, ExportJobStatus.FAILED, e.getMessage());
+    } finally {
+      activeJobs.remove(jobId);
+    }
+  }
+
+  /**
+   * Get a job started by the current user.
+   *
+   * @throws ExportJobNotFoundException if the job doesn't exist, or another user started it
+   */
+  public ExportJob retrieve(UUID jobId) {
+    var job = exportJobDao.retrieve(jobId);
+    if (!job.requester().equals(samService.getUserSubjectId())) {
+      throw new ExportJobNotFoundException("Export job not found for " + jobId);
+    }
+    return job;
+  }
+}
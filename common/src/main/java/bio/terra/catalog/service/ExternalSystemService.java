@@ -6,9 +6,9 @@ import bio.terra.catalog.common.StorageSystemService;
 import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.SystemStatusSystems;
 import bio.terra.catalog.model.TableMetadata;
+import bio.terra.catalog.service.dataset.CatalogIndex;
 import bio.terra.catalog.service.dataset.Dataset;
 import bio.terra.catalog.service.dataset.DatasetAccessLevel;
-import bio.terra.catalog.service.dataset.DatasetDao;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -16,15 +16,15 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class ExternalSystemService implements StorageSystemService {
-  private final DatasetDao datasetDao;
+  private final CatalogIndex catalogIndex;
 
-  public ExternalSystemService(DatasetDao datasetDao) {
-    this.datasetDao = datasetDao;
+  public ExternalSystemService(CatalogIndex catalogIndex) {
+    this.catalogIndex = catalogIndex;
   }
 
   @Override
   public Map<String, StorageSystemInformation> getDatasets() {
-    return datasetDao.listAllDatasets(StorageSystem.EXTERNAL).stream()
+    return catalogIndex.listAllDatasets(StorageSystem.EXTERNAL).stream()
         .collect(
             Collectors.toMap(
                 Dataset::storageSourceId,
@@ -51,6 +51,12 @@ public class ExternalSystemService implements StorageSystemService {
     return new SystemStatusSystems().ok(true);
   }
 
+  @Override
+  public void validateExport(String storageSourceId, String workspaceIdDest) {
+    throw new UnsupportedOperationException(
+        "export to workspace not supported for external datasets");
+  }
+
   @Override
   public void exportToWorkspace(String storageSourceId, String workspaceIdDest) {
     throw new UnsupportedOperationException(
@@ -58,7 +64,8 @@ public class ExternalSystemService implements StorageSystemService {
   }
 
   @Override
-  public DatasetPreviewTable previewTable(String storageSourceId, String tableName, int maxRows) {
+  public DatasetPreviewTable previewTable(
+      String storageSourceId, String tableName, int offset, int maxRows, List<String> columns) {
     throw new UnsupportedOperationException("preview not supported for external datasets");
   }
 }
@@ -1,5 +1,6 @@
 package bio.terra.catalog.service;
 
+import bio.terra.catalog.common.FanOutExecutor;
 import bio.terra.catalog.config.StatusCheckConfiguration;
 import bio.terra.catalog.model.SystemStatus;
 import bio.terra.catalog.model.SystemStatusSystems;
@@ -13,7 +14,6 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -37,8 +37,12 @@ public class StatusCheckService {
   /** last time cache was updated */
   private final AtomicReference<Instant> lastStatusUpdate;
 
-  public StatusCheckService(StatusCheckConfiguration configuration) {
+  /** runs the status checks concurrently */
+  private final FanOutExecutor fanOutExecutor;
+
+  public StatusCheckService(StatusCheckConfiguration configuration, FanOutExecutor fanOutExecutor) {
     this.configuration = configuration;
+    this.fanOutExecutor = fanOutExecutor;
     statusCheckMap = new ConcurrentHashMap<>();
     cachedStatus = new AtomicReference<>(new SystemStatus().ok(false));
     lastStatusUpdate = new AtomicReference<>(Instant.now());
@@ -67,9 +71,8 @@ public class StatusCheckService {
       var newStatus = new SystemStatus();
       try {
         var systems =
-            statusCheckMap.entrySet().stream()
-                .parallel()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
+            fanOutExecutor.map(
+                "checkStatus", statusCheckMap.keySet(), name -> statusCheckMap.get(name).get());
         newStatus.setOk(systems.values().stream().allMatch(SystemStatusSystems::isOk));
         newStatus.setSystems(systems);
       } catch (Exception e) {
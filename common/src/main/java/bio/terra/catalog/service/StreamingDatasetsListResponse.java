@@ -0,0 +1,57 @@
+package bio.terra.catalog.service;
+
+import bio.terra.catalog.model.DatasetsListResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A dataset listing whose results are written directly to the response when it's serialized,
+ * instead of being held in {@link DatasetsListResponse#getResult()}.
+ */
+@JsonSerialize(using = StreamingDatasetsListResponse.Serializer.class)
+public class StreamingDatasetsListResponse extends DatasetsListResponse {
+
+  /** Writes each dataset in the listing to a generator that is positioned in the result array. */
+  @FunctionalInterface
+  public interface ResultWriter {
+    void write(JsonGenerator generator) throws IOException;
+  }
+
+  private final transient ResultWriter resultWriter;
+
+  public StreamingDatasetsListResponse(ResultWriter resultWriter) {
+    this.resultWriter = resultWriter;
+  }
+
+  public void writeResult(JsonGenerator generator) throws IOException {
+    resultWriter.write(generator);
+  }
+
+  public static class Serializer extends StdSerializer<StreamingDatasetsListResponse> {
+    public Serializer() {
+      super(StreamingDatasetsListResponse.class);
+    }
+
+    @Override
+    public void serialize(
+        StreamingDatasetsListResponse value, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("result");
+      try {
+        value.writeResult(generator);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      generator.writeEndArray();
+      if (value.getDegradedSystems() != null) {
+        provider.defaultSerializeField("degradedSystems", value.getDegradedSystems(), generator);
+      }
+      generator.writeEndObject();
+    }
+  }
+}
@@ -0,0 +1,308 @@
+package bio.terra.catalog.service.dataset;
+
+import bio.terra.catalog.common.StorageSystem;
+import bio.terra.catalog.config.CatalogDatabaseConfiguration;
+import bio.terra.catalog.config.CatalogIndexConfiguration;
+import bio.terra.catalog.service.dataset.exception.DatasetNotFoundException;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-memory copy of the catalog, kept coherent with the database.
+ *
+ * <p>The catalog is small, but every request reads it, so reads are served from memory when the
+ * index is enabled. Writes still go to the database, and the written row is reread into this
+ * replica's copy as soon as the write commits. Other replicas learn of a change through the {@code
+ * dataset_changed} notification that a trigger on the dataset table sends when the change commits;
+ * each notification causes the changed row to be reread. Rows are reread one at a time, so a copy
+ * is never replaced by an older one read concurrently. If the listening connection fails, reads go
+ * to the database until the connection is reestablished and the whole catalog has been reloaded, as
+ * notifications may have been missed in between.
+ *
+ * <p>The datasets returned are shared, and must not be modified.
+ */
+@Component
+public class CatalogIndex {
+  private static final Logger logger = LoggerFactory.getLogger(CatalogIndex.class);
+  private static final String CHANNEL = "dataset_changed";
+  private static final int POLL_TIMEOUT_MILLIS = 10_000;
+
+  private final DatasetDao datasetDao;
+  private final CatalogDatabaseConfiguration databaseConfiguration;
+  private final CatalogIndexConfiguration configuration;
+  private volatile Index index;
+  private Thread listener;
+
+  private record SourceKey(StorageSystem storageSystem, String storageSourceId) {}
+
+  private record Index(
+      ConcurrentMap<DatasetId, Dataset> byId, ConcurrentMap<SourceKey, Dataset> bySource) {
+    Index(Collection<Dataset> datasets) {
+      this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+      datasets.forEach(this::put);
+    }
+
+    void put(Dataset dataset) {
+      var previous = byId.put(dataset.id(), dataset);
+      if (previous != null) {
+        bySource.remove(sourceKey(previous), previous);
+      }
+      bySource.put(sourceKey(dataset), dataset);
+    }
+
+    void remove(DatasetId id) {
+      var previous = byId.remove(id);
+      if (previous != null) {
+        bySource.remove(sourceKey(previous), previous);
+      }
+    }
+
+    private static SourceKey sourceKey(Dataset dataset) {
+      return new SourceKey(dataset.storageSystem(), dataset.storageSourceId());
+    }
+  }
+
+  public CatalogIndex(
+      DatasetDao datasetDao,
+      CatalogDatabaseConfiguration databaseConfiguration,
+      CatalogIndexConfiguration configuration) {
+    this.datasetDao = datasetDao;
+    this.databaseConfiguration = databaseConfiguration;
+    this.configuration = configuration;
+  }
+
+  @PostConstruct
+  void startListening() {
+    if (configuration.enabled()) {
+      listener = new Thread(this::listen, "catalog-index-listener");
+      listener.setDaemon(true);
+      listener.start();
+    }
+  }
+
+  @PreDestroy
+  void stopListening() {
+    if (listener != null) {
+      listener.interrupt();
+    }
+  }
+
+  /** Whether reads are being served from memory rather than the database. */
+  public boolean isLoaded() {
+    return index != null;
+  }
+
+  /**
+   * Pass catalog entries to a consumer as they're read from the database. This always reads the
+   * database, so it should only be used when the index isn't loaded.
+   *
+   * @see DatasetDao#streamDatasets
+   */
+  public void streamDatasets(
+      Map<StorageSystem, Collection<String>> systemsAndIds, Consumer<RawDataset> consumer) {
+    datasetDao.streamDatasets(systemsAndIds, consumer);
+  }
+
+  public Dataset retrieve(DatasetId id) {
+    return retrieve(id, null);
+  }
+
+  public Dataset retrieve(DatasetId id, Set<String> fields) {
+    var current = index;
+    if (current == null) {
+      return datasetDao.retrieve(id, fields);
+    }
+    var dataset = current.byId().get(id);
+    if (dataset == null) {
+      throw new DatasetNotFoundException("Dataset not found for " + id);
+    }
+    return project(dataset, fields);
+  }
+
+  public List<Dataset> find(Map<StorageSystem, Collection<String>> systemsAndIds) {
+    return find(systemsAndIds, null);
+  }
+
+  public List<Dataset> find(
+      Map<StorageSystem, Collection<String>> systemsAndIds, Set<String> fields) {
+    var current = index;
+    if (current == null) {
+      return datasetDao.find(systemsAndIds, fields);
+    }
+    return lookup(current, systemsAndIds).map(dataset -> project(dataset, fields)).toList();
+  }
+
+  public List<Dataset> find(
+      Map<StorageSystem, Collection<String>> systemsAndIds,
+      DatasetCursor after,
+      int limit,
+      Set<String> fields) {
+    var current = index;
+    if (current == null) {
+      return datasetDao.find(systemsAndIds, after, limit, fields);
+    }
+    return page(lookup(current, systemsAndIds), after, limit, fields);
+  }
+
+  private static Stream<Dataset> lookup(
+      Index current, Map<StorageSystem, Collection<String>> systemsAndIds) {
+    return systemsAndIds.entrySet().stream()
+        .flatMap(
+            entry ->
+                entry.getValue().stream()
+                    .map(id -> current.bySource().get(new SourceKey(entry.getKey(), id))))
+        .filter(Objects::nonNull);
+  }
+
+  public List<Dataset> listAllDatasets() {
+    return listAllDatasets((Set<String>) null);
+  }
+
+  public List<Dataset> listAllDatasets(Set<String> fields) {
+    var current = index;
+    if (current == null) {
+      return datasetDao.listAllDatasets(fields);
+    }
+    return current.byId().values().stream().map(dataset -> project(dataset, fields)).toList();
+  }
+
+  public List<Dataset> listAllDatasets(DatasetCursor after, int limit, Set<String> fields) {
+    var current = index;
+    if (current == null) {
+      return datasetDao.listAllDatasets(after, limit, fields);
+    }
+    return page(current.byId().values().stream(), after, limit, fields);
+  }
+
+  private static List<Dataset> page(
+      Stream<Dataset> datasets, DatasetCursor after, int limit, Set<String> fields) {
+    return datasets
+        .filter(after::isBefore)
+        .sorted(DatasetCursor.ORDER)
+        .limit(limit)
+        .map(dataset -> project(dataset, fields))
+        .toList();
+  }
+
+  // Copy only the requested top-level fields of the metadata. The field values are shared with the
+  // index, like the rest of the dataset.
+  private static Dataset project(Dataset dataset, Set<String> fields) {
+    if (fields == null) {
+      return dataset;
+    }
+    var metadata = dataset.metadata().objectNode();
+    for (String field : fields) {
+      var value = dataset.metadata().get(field);
+      if (value != null) {
+        metadata.set(field, value);
+      }
+    }
+    return dataset.withMetadata(metadata);
+  }
+
+  public List<Dataset> listAllDatasets(StorageSystem storageSystem) {
+    var current = index;
+    if (current == null) {
+      return datasetDao.listAllDatasets(storageSystem);
+    }
+    return current.byId().values().stream()
+        .filter(dataset -> dataset.storageSystem() == storageSystem)
+        .toList();
+  }
+
+  // After each write, the committed row is reread rather than the written dataset applied, as
+  // another write may have committed since.
+  public Dataset upsert(Dataset dataset) {
+    var result = datasetDao.upsert(dataset);
+    refresh(result.id());
+    return result;
+  }
+
+  public void update(Dataset dataset) {
+    datasetDao.update(dataset);
+    refresh(dataset.id());
+  }
+
+  public boolean delete(Dataset dataset) {
+    boolean deleted = datasetDao.delete(dataset);
+    refresh(dataset.id());
+    return deleted;
+  }
+
+  private void listen() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try (Connection connection = connect()) {
+        try (var statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        // Load after listening, so that no change made during the load is missed.
+        reload();
+        var pgConnection = connection.unwrap(PGConnection.class);
+        while (!Thread.currentThread().isInterrupted()) {
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              refresh(new DatasetId(UUID.fromString(notification.getParameter())));
+            }
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        index = null;
+        logger.warn("Catalog index listener failed, reads will go to the database", e);
+        try {
+          TimeUnit.SECONDS.sleep(Math.max(1, configuration.reconnectDelaySeconds()));
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+    index = null;
+  }
+
+  private Connection connect() throws SQLException {
+    return DriverManager.getConnection(
+        databaseConfiguration.getUri(),
+        databaseConfiguration.getUsername(),
+        databaseConfiguration.getPassword());
+  }
+
+  @VisibleForTesting
+  void reload() {
+    index = new Index(datasetDao.listAllDatasets());
+    logger.info("Loaded {} datasets into the catalog index", index.byId().size());
+  }
+
+  // Synchronized so that a row read earlier can't be put after one read later.
+  @VisibleForTesting
+  synchronized void refresh(DatasetId id) {
+    var current = index;
+    if (current == null) {
+      return;
+    }
+    try {
+      current.put(datasetDao.retrieve(id));
+    } catch (DatasetNotFoundException e) {
+      current.remove(id);
+    }
+  }
+}
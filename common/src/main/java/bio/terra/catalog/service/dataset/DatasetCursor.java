@@ -0,0 +1,66 @@
+package bio.terra.catalog.service.dataset;
+
+import bio.terra.common.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * A position in the catalog, ordered by creation time and then ID. A page of datasets starts
+ * after its cursor.
+ *
+ * <p>Cursors are given to API clients as opaque strings, so that the ordering can change without
+ * changing the API.
+ */
+public record DatasetCursor(Instant creationTime, DatasetId id) {
+  /** A cursor before every dataset. */
+  public static final DatasetCursor START =
+      new DatasetCursor(Instant.EPOCH, new DatasetId(new UUID(0, 0)));
+
+  /** The order of datasets in pages. */
+  public static final Comparator<Dataset> ORDER =
+      Comparator.comparing(Dataset::creationTime)
+          .thenComparing(dataset -> dataset.id().uuid(), DatasetCursor::compareUuids);
+
+  private static final String SEPARATOR = "/";
+
+  public static DatasetCursor after(Dataset dataset) {
+    return new DatasetCursor(dataset.creationTime(), dataset.id());
+  }
+
+  public boolean isBefore(Dataset dataset) {
+    int result = creationTime.compareTo(dataset.creationTime());
+    return result < 0 || (result == 0 && compareUuids(id.uuid(), dataset.id().uuid()) < 0);
+  }
+
+  // Postgres compares UUIDs as unsigned bytes, but UUID.compareTo() compares signed longs.
+  private static int compareUuids(UUID a, UUID b) {
+    int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+    return result != 0
+        ? result
+        : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+  }
+
+  public String encode() {
+    String value = creationTime + SEPARATOR + id.toValue();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static DatasetCursor decode(String cursor) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = value.split(SEPARATOR, 2);
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Missing separator");
+      }
+      return new DatasetCursor(Instant.parse(parts[0]), new DatasetId(UUID.fromString(parts[1])));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new BadRequestException("Invalid cursor: " + cursor, e);
+    }
+  }
+}
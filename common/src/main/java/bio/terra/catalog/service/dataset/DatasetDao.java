@@ -10,21 +10,27 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.postgresql.util.PGobject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -38,10 +44,76 @@ public class DatasetDao {
   private static final String METADATA_FIELD = "metadata";
   private static final String CREATED_DATE_FIELD = "created_date";
 
+  private static final String FIELDS_PARAM = "fields";
+  private static final String LIMIT_PARAM = "limit";
+
+  // The dataset columns, with the metadata reduced to the requested top-level fields.
+  private static final String PROJECTED_COLUMNS =
+      "id, storage_source_id, storage_system, created_date, "
+          + "(SELECT coalesce(jsonb_object_agg(key, value), '{}') FROM jsonb_each(metadata) "
+          + "WHERE key = ANY(:fields)) AS metadata";
+
+  // One (storage_system, storage_source_ids) pair of parameters per storage system, so that the
+  // text of the statement never changes.
+  private static final String FIND_CONDITION =
+      Arrays.stream(StorageSystem.values())
+          .map(
+              system ->
+                  "(storage_system = :%s AND storage_source_id = ANY(:%s))"
+                      .formatted(systemParam(system), idsParam(system)))
+          .collect(Collectors.joining(" OR ", "(", ")"));
+  private static final String PAGE_CONDITION = "(created_date, id) > (:created_date, :id)";
+  private static final String PAGE_ORDER = " ORDER BY created_date, id LIMIT :limit";
+
+  // Every query of the catalog is one of these statements. Their text doesn't depend on how many
+  // IDs or fields are requested, so the driver can prepare each one on the server once per
+  // connection and reuse its plan; see catalog.catalog-database.prepareThreshold.
+  private static final Query RETRIEVE = new Query(" WHERE id = :id");
+  private static final Query FIND = new Query(" WHERE " + FIND_CONDITION);
+  private static final Query FIND_PAGE =
+      new Query(" WHERE " + FIND_CONDITION + " AND " + PAGE_CONDITION + PAGE_ORDER);
+  private static final Query LIST = new Query("");
+  private static final Query LIST_PAGE = new Query(" WHERE " + PAGE_CONDITION + PAGE_ORDER);
+
+  // The dataset columns for streaming, with the fields that are computed for a response removed
+  // from the metadata.
+  private static final String RAW_COLUMNS =
+      "id, storage_source_id, storage_system, "
+          + "(metadata - 'id' - 'accessLevel' - 'phsId')::text AS metadata, "
+          + "(metadata -> 'phsId')::text AS phs_id, "
+          + "jsonb_exists(metadata, 'requestAccessURL') AS has_request_access_url";
+  private static final String STREAM_ALL = "SELECT " + RAW_COLUMNS + " FROM dataset";
+  private static final String STREAM_FIND = STREAM_ALL + " WHERE " + FIND_CONDITION;
+  private static final int STREAM_FETCH_SIZE = 500;
+
+  /**
+   * The text of a query that returns all metadata fields, and of the same query returning only
+   * the requested fields.
+   */
+  private record Query(String allFields, String projectedFields) {
+    Query(String condition) {
+      this(
+          "SELECT id, storage_source_id, storage_system, metadata, created_date FROM dataset"
+              + condition,
+          "SELECT " + PROJECTED_COLUMNS + " FROM dataset" + condition);
+    }
+
+    String sql(Set<String> fields) {
+      return fields == null ? allFields : projectedFields;
+    }
+  }
+
+  private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
   @Autowired
   public DatasetDao(NamedParameterJdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
     this.jdbcTemplate = jdbcTemplate;
     this.objectMapper = objectMapper;
+    // Within a transaction, a fetch size makes postgres return rows through a cursor, a batch at a
+    // time, rather than all at once.
+    var streamingTemplate = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+    streamingTemplate.setFetchSize(STREAM_FETCH_SIZE);
+    streamingJdbcTemplate = new NamedParameterJdbcTemplate(streamingTemplate);
   }
 
   @VisibleForTesting
@@ -57,16 +129,53 @@ public class DatasetDao {
 
   @ReadTransaction
   public Dataset retrieve(DatasetId id) {
-    String sql =
-        "SELECT id, storage_source_id, storage_system, metadata, created_date FROM dataset WHERE id = :id";
-    MapSqlParameterSource params = new MapSqlParameterSource().addValue(ID_FIELD, id.uuid());
+    return retrieve(id, null);
+  }
+
+  /**
+   * Retrieve a catalog entry.
+   *
+   * @param id the ID of the entry
+   * @param fields the top-level metadata fields to return, or null to return all fields
+   */
+  @ReadTransaction
+  public Dataset retrieve(DatasetId id, Set<String> fields) {
+    MapSqlParameterSource params = fieldsParams(fields).addValue(ID_FIELD, id.uuid());
     try {
-      return jdbcTemplate.queryForObject(sql, params, new DatasetMapper());
+      return jdbcTemplate.queryForObject(RETRIEVE.sql(fields), params, new DatasetMapper());
     } catch (EmptyResultDataAccessException ex) {
       throw new DatasetNotFoundException("Dataset not found for " + id, ex);
     }
   }
 
+  private static MapSqlParameterSource fieldsParams(Set<String> fields) {
+    var params = new MapSqlParameterSource();
+    if (fields != null) {
+      params.addValue(FIELDS_PARAM, textArray(fields));
+    }
+    return params;
+  }
+
+  // Bind a collection as a single text[] parameter, rather than expanding it into a list of
+  // parameters.
+  private static SqlTypeValue textArray(Collection<String> values) {
+    return new AbstractSqlTypeValue() {
+      @Override
+      protected Object createTypeValue(Connection connection, int sqlType, String typeName)
+          throws SQLException {
+        return connection.createArrayOf("text", values.toArray());
+      }
+    };
+  }
+
+  private static String systemParam(StorageSystem storageSystem) {
+    return storageSystem.name().toLowerCase() + "_system";
+  }
+
+  private static String idsParam(StorageSystem storageSystem) {
+    return storageSystem.name().toLowerCase() + "_ids";
+  }
+
   private Dataset createOrUpdate(String sql, MapSqlParameterSource params) {
     DaoKeyHolder keyHolder = new DaoKeyHolder();
     int rowsAffected;
@@ -133,39 +242,135 @@ public class DatasetDao {
   }
 
   @ReadTransaction
-  // This code is safe because it builds a template query string using ?s only. It relies on
-  // JdbcTemplate to perform all text substitutions.
-  @SuppressWarnings("java:S2077")
   public List<Dataset> find(Map<StorageSystem, Collection<String>> systemsAndIds) {
-    String query = "(storage_system = ? AND storage_source_id IN (%s))";
-    List<Object> args = new ArrayList<>();
-    String whereClause =
-        systemsAndIds.entrySet().stream()
-            .filter(entry -> !entry.getValue().isEmpty())
-            .map(
-                entry -> {
-                  args.add(String.valueOf(entry.getKey()));
-                  args.addAll(entry.getValue());
-                  return String.format(
-                      query,
-                      Stream.generate(() -> "?")
-                          .limit(entry.getValue().size())
-                          .collect(Collectors.joining(", ")));
-                })
-            .collect(Collectors.joining(" OR "));
-
-    if (whereClause.isEmpty()) {
+    return find(systemsAndIds, null);
+  }
+
+  /**
+   * Find the catalog entries for the given storage source IDs.
+   *
+   * <p>Each storage system's IDs are bound as a single array parameter, so the SQL text is the same
+   * for any number of IDs and the statement can be reused.
+   *
+   * @param systemsAndIds the storage source IDs to find
+   * @param fields the top-level metadata fields to return, or null to return all fields
+   */
+  @ReadTransaction
+  public List<Dataset> find(
+      Map<StorageSystem, Collection<String>> systemsAndIds, Set<String> fields) {
+    if (isEmpty(systemsAndIds)) {
+      return List.of();
+    }
+    return jdbcTemplate.query(
+        FIND.sql(fields), findParams(systemsAndIds, fields), new DatasetMapper());
+  }
+
+  /**
+   * Find a page of the catalog entries for the given storage source IDs, in {@link
+   * DatasetCursor#ORDER}.
+   *
+   * @param systemsAndIds the storage source IDs to find
+   * @param after the position in the catalog that the page starts after
+   * @param limit the maximum number of entries to return
+   * @param fields the top-level metadata fields to return, or null to return all fields
+   */
+  @ReadTransaction
+  public List<Dataset> find(
+      Map<StorageSystem, Collection<String>> systemsAndIds,
+      DatasetCursor after,
+      int limit,
+      Set<String> fields) {
+    if (isEmpty(systemsAndIds)) {
       return List.of();
     }
+    var params = findParams(systemsAndIds, fields).addValue(LIMIT_PARAM, limit);
+    addPageParams(params, after);
+    return jdbcTemplate.query(FIND_PAGE.sql(fields), params, new DatasetMapper());
+  }
+
+  private static boolean isEmpty(Map<StorageSystem, Collection<String>> systemsAndIds) {
+    return systemsAndIds.values().stream().allMatch(Collection::isEmpty);
+  }
+
+  private static MapSqlParameterSource findParams(
+      Map<StorageSystem, Collection<String>> systemsAndIds, Set<String> fields) {
+    var params = fieldsParams(fields);
+    for (StorageSystem storageSystem : StorageSystem.values()) {
+      params
+          .addValue(systemParam(storageSystem), String.valueOf(storageSystem))
+          .addValue(
+              idsParam(storageSystem),
+              textArray(systemsAndIds.getOrDefault(storageSystem, List.of())));
+    }
+    return params;
+  }
 
-    String sql = "SELECT * FROM dataset WHERE " + whereClause;
-    return jdbcTemplate.getJdbcTemplate().query(sql, new DatasetMapper(), args.toArray());
+  private static void addPageParams(MapSqlParameterSource params, DatasetCursor after) {
+    params
+        .addValue(CREATED_DATE_FIELD, after.creationTime().atOffset(ZoneOffset.UTC))
+        .addValue(ID_FIELD, after.id().uuid());
   }
 
   @ReadTransaction
   public List<Dataset> listAllDatasets() {
-    String sql = "SELECT * FROM dataset";
-    return jdbcTemplate.query(sql, new DatasetMapper());
+    return listAllDatasets((Set<String>) null);
+  }
+
+  /**
+   * List all catalog entries.
+   *
+   * @param fields the top-level metadata fields to return, or null to return all fields
+   */
+  @ReadTransaction
+  public List<Dataset> listAllDatasets(Set<String> fields) {
+    return jdbcTemplate.query(LIST.sql(fields), fieldsParams(fields), new DatasetMapper());
+  }
+
+  /**
+   * List a page of all catalog entries, in {@link DatasetCursor#ORDER}.
+   *
+   * @param after the position in the catalog that the page starts after
+   * @param limit the maximum number of entries to return
+   * @param fields the top-level metadata fields to return, or null to return all fields
+   */
+  @ReadTransaction
+  public List<Dataset> listAllDatasets(DatasetCursor after, int limit, Set<String> fields) {
+    var params = fieldsParams(fields).addValue(LIMIT_PARAM, limit);
+    addPageParams(params, after);
+    return jdbcTemplate.query(LIST_PAGE.sql(fields), params, new DatasetMapper());
+  }
+
+  /**
+   * Pass catalog entries to a consumer as they're read, without holding them all in memory.
+   *
+   * @param systemsAndIds the storage source IDs to read, or null to read all entries
+   * @param consumer the consumer of each entry
+   */
+  @ReadTransaction
+  public void streamDatasets(
+      Map<StorageSystem, Collection<String>> systemsAndIds, Consumer<RawDataset> consumer) {
+    String sql = STREAM_ALL;
+    var params = new MapSqlParameterSource();
+    if (systemsAndIds != null) {
+      if (isEmpty(systemsAndIds)) {
+        return;
+      }
+      sql = STREAM_FIND;
+      params = findParams(systemsAndIds, null);
+    }
+    streamingJdbcTemplate.query(
+        sql,
+        params,
+        rs -> {
+          consumer.accept(
+              new RawDataset(
+                  new DatasetId(rs.getObject(ID_FIELD, UUID.class)),
+                  StorageSystem.valueOf(rs.getString(STORAGE_SYSTEM_FIELD)),
+                  rs.getString(STORAGE_SOURCE_ID_FIELD),
+                  rs.getString(METADATA_FIELD),
+                  rs.getString("phs_id"),
+                  rs.getBoolean("has_request_access_url")));
+        });
   }
 
   @ReadTransaction
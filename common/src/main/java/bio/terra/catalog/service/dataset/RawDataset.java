@@ -0,0 +1,23 @@
+package bio.terra.catalog.service.dataset;
+
+import bio.terra.catalog.common.StorageSystem;
+
+/**
+ * A catalog entry as read from the database, with its metadata left as JSON text so that it can be
+ * written to a response without being parsed.
+ *
+ * @param id the ID of the dataset
+ * @param storageSystem the storage system of the dataset
+ * @param storageSourceId the ID of the dataset in its storage system
+ * @param metadata the metadata, without the fields that are computed for a response ({@code id},
+ *     {@code accessLevel} and {@code phsId}), or null if the dataset has no metadata
+ * @param phsId the metadata's {@code phsId} value as JSON, or null if it has none
+ * @param hasRequestAccessUrl whether the metadata has a {@code requestAccessURL} value
+ */
+public record RawDataset(
+    DatasetId id,
+    StorageSystem storageSystem,
+    String storageSourceId,
+    String metadata,
+    String phsId,
+    boolean hasRequestAccessUrl) {}
@@ -0,0 +1,35 @@
+package bio.terra.catalog.service.export;
+
+import bio.terra.catalog.model.ExportJobResponse;
+import bio.terra.catalog.service.dataset.DatasetId;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * An export of a dataset into a workspace.
+ *
+ * @param requester the Sam subject ID of the user who started the export
+ * @param errorMessage why the export failed, or null if it hasn't failed
+ */
+public record ExportJob(
+    UUID id,
+    DatasetId datasetId,
+    UUID workspaceId,
+    String requester,
+    ExportJobStatus status,
+    String errorMessage,
+    Instant creationTime,
+    Instant updateTime) {
+
+  public ExportJobResponse toModel() {
+    return new ExportJobResponse()
+        .id(id)
+        .datasetId(datasetId.uuid())
+        .workspaceId(workspaceId)
+        .status(status.toModel())
+        .message(errorMessage)
+        .created(creationTime.atOffset(ZoneOffset.UTC))
+        .updated(updateTime.atOffset(ZoneOffset.UTC));
+  }
+}
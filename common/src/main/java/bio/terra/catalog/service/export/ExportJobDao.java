@@ -0,0 +1,152 @@
+package bio.terra.catalog.service.export;
+
+import bio.terra.catalog.service.dataset.DatasetId;
+import bio.terra.catalog.service.export.exception.ExportJobNotFoundException;
+import bio.terra.common.db.ReadTransaction;
+import bio.terra.common.db.WriteTransaction;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.UUID;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ExportJobDao {
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private static final String ID_FIELD = "id";
+  private static final String DATASET_ID_FIELD = "dataset_id";
+  private static final String WORKSPACE_ID_FIELD = "workspace_id";
+  private static final String REQUESTER_FIELD = "requester";
+  private static final String STATUS_FIELD = "status";
+  private static final String ERROR_MESSAGE_FIELD = "error_message";
+  private static final String CREATED_DATE_FIELD = "created_date";
+  private static final String UPDATED_DATE_FIELD = "updated_date";
+
+  private static final String COLUMNS =
+      "id, dataset_id, workspace_id, requester, status, error_message, created_date, updated_date";
+  private static final String UNFINISHED_STATUSES =
+      "('%s', '%s')".formatted(ExportJobStatus.QUEUED, ExportJobStatus.RUNNING);
+
+  public ExportJobDao(NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Record a new job.
+   *
+   * @param requester the Sam subject ID of the user who started the export
+   */
+  @WriteTransaction
+  public ExportJob create(DatasetId datasetId, UUID workspaceId, String requester) {
+    String sql =
+        "INSERT INTO export_job (dataset_id, workspace_id, requester, status) "
+            + "VALUES (:dataset_id, :workspace_id, :requester, :status) RETURNING "
+            + COLUMNS;
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue(DATASET_ID_FIELD, datasetId.uuid())
+            .addValue(WORKSPACE_ID_FIELD, workspaceId)
+            .addValue(REQUESTER_FIELD, requester)
+            .addValue(STATUS_FIELD, String.valueOf(ExportJobStatus.QUEUED));
+    return jdbcTemplate.queryForObject(sql, params, new ExportJobMapper());
+  }
+
+  @ReadTransaction
+  public ExportJob retrieve(UUID id) {
+    String sql = "SELECT " + COLUMNS + " FROM export_job WHERE id = :id";
+    MapSqlParameterSource params = new MapSqlParameterSource().addValue(ID_FIELD, id);
+    try {
+      return jdbcTemplate.queryForObject(sql, params, new ExportJobMapper());
+    } catch (EmptyResultDataAccessException ex) {
+      throw new ExportJobNotFoundException("Export job not found for " + id, ex);
+    }
+  }
+
+  /**
+   * Record a job's progress.
+   *
+   * @param errorMessage why the job failed, or null if it hasn't failed
+   */
+  @WriteTransaction
+  public void updateStatus(UUID id, ExportJobStatus status, String errorMessage) {
+    String sql =
+        "UPDATE export_job "
+            + "SET status = :status, error_message = :error_message, updated_date = now() "
+            + "WHERE id = :id";
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue(ID_FIELD, id)
+            .addValue(STATUS_FIELD, String.valueOf(status))
+            .addValue(ERROR_MESSAGE_FIELD, errorMessage);
+    if (jdbcTemplate.update(sql, params) != 1) {
+      throw new ExportJobNotFoundException("Export job not found for " + id);
+    }
+  }
+
+  /** Record that the given jobs are still being run. */
+  @WriteTransaction
+  public void touch(Collection<UUID> ids) {
+    String sql = "UPDATE export_job SET updated_date = now() WHERE id = ANY(:id)";
+    jdbcTemplate.update(sql, new MapSqlParameterSource().addValue(ID_FIELD, uuidArray(ids)));
+  }
+
+  /**
+   * Fail the unfinished jobs that haven't been updated since the given time, because the instance
+   * of the service that was running them has stopped.
+   *
+   * @param updatedBefore the time before which an unfinished job must have been last updated
+   * @param errorMessage the reason recorded for the failures
+   * @return the number of jobs failed
+   */
+  @WriteTransaction
+  public int failStale(Instant updatedBefore, String errorMessage) {
+    String sql =
+        "UPDATE export_job "
+            + "SET status = :status, error_message = :error_message, updated_date = now() "
+            + "WHERE status IN "
+            + UNFINISHED_STATUSES
+            + " AND updated_date < :updated_date";
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue(STATUS_FIELD, String.valueOf(ExportJobStatus.FAILED))
+            .addValue(ERROR_MESSAGE_FIELD, errorMessage)
+            .addValue(UPDATED_DATE_FIELD, updatedBefore.atOffset(ZoneOffset.UTC));
+    return jdbcTemplate.update(sql, params);
+  }
+
+  // Bind a collection as a single uuid[] parameter, so the statement is the same for any number
+  // of jobs.
+  private static SqlTypeValue uuidArray(Collection<UUID> values) {
+    return new AbstractSqlTypeValue() {
+      @Override
+      protected Object createTypeValue(Connection connection, int sqlType, String typeName)
+          throws SQLException {
+        return connection.createArrayOf("uuid", values.toArray());
+      }
+    };
+  }
+
+  private static class ExportJobMapper implements RowMapper<ExportJob> {
+    public ExportJob mapRow(ResultSet rs, int rowNum) throws SQLException {
+      return new ExportJob(
+          rs.getObject(ID_FIELD, UUID.class),
+          new DatasetId(rs.getObject(DATASET_ID_FIELD, UUID.class)),
+          rs.getObject(WORKSPACE_ID_FIELD, UUID.class),
+          rs.getString(REQUESTER_FIELD),
+          ExportJobStatus.valueOf(rs.getString(STATUS_FIELD)),
+          rs.getString(ERROR_MESSAGE_FIELD),
+          rs.getTimestamp(CREATED_DATE_FIELD).toInstant(),
+          rs.getTimestamp(UPDATED_DATE_FIELD).toInstant());
+    }
+  }
+}
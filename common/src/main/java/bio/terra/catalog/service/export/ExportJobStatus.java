@@ -0,0 +1,15 @@
+package bio.terra.catalog.service.export;
+
+/** The progress of an export job. */
+public enum ExportJobStatus {
+  /** The job is waiting for a thread to run it. */
+  QUEUED,
+  /** The storage system is copying the dataset. */
+  RUNNING,
+  SUCCEEDED,
+  FAILED;
+
+  public bio.terra.catalog.model.ExportJobStatus toModel() {
+    return bio.terra.catalog.model.ExportJobStatus.valueOf(name());
+  }
+}
@@ -0,0 +1,14 @@
+package bio.terra.catalog.service.export.exception;
+
+import bio.terra.common.exception.NotFoundException;
+
+public class ExportJobNotFoundException extends NotFoundException {
+
+  public ExportJobNotFoundException(String message) {
+    super(message);
+  }
+
+  public ExportJobNotFoundException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,11 @@
+package bio.terra.catalog.service.export.exception;
+
+import bio.terra.common.exception.ErrorReportException;
+import org.springframework.http.HttpStatus;
+
+/** An export couldn't be started because too many exports are already waiting to run. */
+public class ExportJobRejectedException extends ErrorReportException {
+  public ExportJobRejectedException(String message) {
+    super(message, null, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+}
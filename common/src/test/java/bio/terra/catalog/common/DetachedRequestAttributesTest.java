@@ -0,0 +1,59 @@
+package bio.terra.catalog.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class DetachedRequestAttributesTest {
+  private static final String NAME = "attribute";
+
+  @AfterEach
+  void afterEach() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void attributesOutliveRequest() {
+    var requestAttributes = new ServletRequestAttributes(new MockHttpServletRequest());
+    requestAttributes.setAttribute(NAME, "value", RequestAttributes.SCOPE_REQUEST);
+    RequestContextHolder.setRequestAttributes(requestAttributes);
+    var detached = DetachedRequestAttributes.capture();
+
+    // End the request, then run with the detached attributes.
+    requestAttributes.requestCompleted();
+    RequestContextHolder.resetRequestAttributes();
+    var value = new AtomicReference<>();
+    detached.run(
+        () ->
+            value.set(
+                RequestContextHolder.currentRequestAttributes()
+                    .getAttribute(NAME, RequestAttributes.SCOPE_REQUEST)));
+
+    assertThat(value.get(), is("value"));
+    assertThat(RequestContextHolder.getRequestAttributes(), nullValue());
+  }
+
+  @Test
+  void captureWithoutRequest() {
+    var detached = DetachedRequestAttributes.capture();
+    assertThat(detached.getAttributeNames(RequestAttributes.SCOPE_REQUEST).length, is(0));
+  }
+
+  @Test
+  void sessionIdIdentifiesCopy() {
+    var detached = DetachedRequestAttributes.capture();
+    assertThat(detached.getSessionId(), startsWith("detached-"));
+    assertThat(detached.getSessionId(), is(detached.getSessionId()));
+    assertThat(detached.getSessionId(), not(DetachedRequestAttributes.capture().getSessionId()));
+  }
+}
@@ -0,0 +1,215 @@
+package bio.terra.catalog.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.catalog.config.FanOutConfiguration;
+import bio.terra.common.exception.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class FanOutExecutorTest {
+  private static final String NAME = "attribute";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private FanOutExecutor executor;
+
+  private FanOutExecutor createExecutor(int threads, int queueSize, int timeoutSeconds) {
+    executor =
+        new FanOutExecutor(
+            new FanOutConfiguration(threads, queueSize, timeoutSeconds), meterRegistry);
+    return executor;
+  }
+
+  @AfterEach
+  void afterEach() {
+    RequestContextHolder.resetRequestAttributes();
+    executor.shutdown();
+  }
+
+  private static Object getAttribute() {
+    var requestAttributes = RequestContextHolder.getRequestAttributes();
+    return requestAttributes == null
+        ? null
+        : requestAttributes.getAttribute(NAME, RequestAttributes.SCOPE_REQUEST);
+  }
+
+  @Test
+  void mapUsesRequestAttributes() {
+    var requestAttributes = new ServletRequestAttributes(new MockHttpServletRequest());
+    requestAttributes.setAttribute(NAME, "value", RequestAttributes.SCOPE_REQUEST);
+    RequestContextHolder.setRequestAttributes(requestAttributes);
+    var results =
+        createExecutor(2, 10, 10).map("test", List.of(1, 2, 3), key -> getAttribute() + key);
+    assertThat(results, is(Map.of(1, "value1", 2, "value2", 3, "value3")));
+  }
+
+  @Test
+  void requestAttributesAreCleared() {
+    createExecutor(1, 10, 10);
+    var requestAttributes = new ServletRequestAttributes(new MockHttpServletRequest());
+    requestAttributes.setAttribute(NAME, "value", RequestAttributes.SCOPE_REQUEST);
+    RequestContextHolder.setRequestAttributes(requestAttributes);
+    executor.map("test", List.of(1), key -> key);
+
+    // The next task on the same thread, from a caller with no request, doesn't see the attributes.
+    RequestContextHolder.resetRequestAttributes();
+    assertThat(executor.map("test", List.of(1), key -> getAttribute()).get(1), nullValue());
+  }
+
+  @Test
+  void mapRethrowsException() {
+    createExecutor(2, 10, 10);
+    assertThrows(
+        NotFoundException.class,
+        () ->
+            executor.map(
+                "test",
+                List.of(1, 2),
+                key -> {
+                  throw new NotFoundException("not found");
+                }));
+  }
+
+  @Test
+  void mapTimesOut() {
+    createExecutor(2, 10, 1);
+    var release = new CountDownLatch(1);
+    assertThrows(
+        FanOutTimeoutException.class,
+        () ->
+            executor.map(
+                "test",
+                List.of(1),
+                key -> {
+                  try {
+                    return release.await(10, TimeUnit.SECONDS);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                  }
+                }));
+    assertThat(meterRegistry.get(FanOutExecutor.TIMEOUTS_METRIC).counter().count(), is(1.0));
+  }
+
+  @Test
+  void callsExpireWithoutWaitingCaller() {
+    createExecutor(2, 10, 10);
+    var expired = new CountDownLatch(1);
+    // The caller waits for the first call, which completes only once the second call has been
+    // cancelled by its own deadline.
+    var results =
+        executor.mapPartial(
+            "test",
+            List.of(1, 2),
+            key -> {
+              try {
+                if (key == 1) {
+                  return expired.await(10, TimeUnit.SECONDS);
+                }
+                return new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                expired.countDown();
+                return false;
+              }
+            },
+            key -> key == 2 ? Duration.ofMillis(100) : null);
+    assertThat(results.results(), is(Map.of(1, true)));
+    assertThat(results.failed(), is(Set.of(2)));
+    assertThat(
+        meterRegistry.get(FanOutExecutor.TIMEOUTS_METRIC).tag("task", "test").counter().count(),
+        is(1.0));
+  }
+
+  @Test
+  void rejectedCallsRunOnCaller() {
+    createExecutor(1, 1, 10);
+    var release = new CountDownLatch(1);
+    var callerThread = Thread.currentThread();
+    // The first call occupies the only thread and the second fills the queue, so the third is run
+    // by the caller.
+    var results =
+        executor.map(
+            "test",
+            List.of(1, 2, 3),
+            key -> {
+              if (key == 1) {
+                awaitQuietly(release);
+              } else if (key == 3) {
+                release.countDown();
+              }
+              return Thread.currentThread() == callerThread;
+            });
+    assertThat(results, is(Map.of(1, false, 2, false, 3, true)));
+    assertThat(meterRegistry.get(FanOutExecutor.REJECTED_METRIC).counter().count(), is(1.0));
+  }
+
+  @Test
+  void nestedCallsDoNotWaitForCaller() {
+    createExecutor(1, 10, 10);
+    // The outer call holds the only thread, so the inner calls are made by the outer call.
+    var results =
+        executor.map(
+            "outer",
+            List.of(1),
+            outer -> executor.map("inner", List.of(2, 3), inner -> outer * 10 + inner));
+    assertThat(results, is(Map.of(1, Map.of(2, 12, 3, 13))));
+  }
+
+  @Test
+  void bothRunsCallsConcurrently() {
+    createExecutor(1, 10, 10);
+    var secondStarted = new CountDownLatch(1);
+    var callerThread = Thread.currentThread();
+    // The first call can only complete once the second has started.
+    var result =
+        executor.both(
+            "test",
+            () -> {
+              awaitQuietly(secondStarted);
+              return Thread.currentThread() == callerThread;
+            },
+            () -> {
+              secondStarted.countDown();
+              return Thread.currentThread() == callerThread;
+            },
+            List::of);
+    assertThat(result, is(List.of(false, true)));
+  }
+
+  @Test
+  void bothRethrowsException() {
+    createExecutor(1, 10, 10);
+    assertThrows(
+        NotFoundException.class,
+        () ->
+            executor.both(
+                "test",
+                () -> 1,
+                () -> {
+                  throw new NotFoundException("not found");
+                },
+                Integer::sum));
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package bio.terra.catalog.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import bio.terra.catalog.config.HttpClientConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.client.ClientBuilder;
+import org.glassfish.jersey.apache5.connector.Apache5ConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.junit.jupiter.api.Test;
+
+class PooledHttpClientTest {
+  private static final String SYSTEM = "system";
+  private static final String PROPERTY = "property";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private double connections(String state) {
+    return meterRegistry
+        .get(PooledHttpClient.CONNECTIONS_METRIC)
+        .tag("system", SYSTEM)
+        .tag("state", state)
+        .gauge()
+        .value();
+  }
+
+  @Test
+  void createKeepsDefaultConfiguration() {
+    var defaultClient = ClientBuilder.newClient(new ClientConfig().property(PROPERTY, "value"));
+    var client =
+        PooledHttpClient.create(
+            SYSTEM, defaultClient, new HttpClientConfiguration(10, 5, 60, 1, 1, 1), meterRegistry);
+    var configuration = (ClientConfig) client.getConfiguration();
+    assertThat(configuration.getProperty(PROPERTY), is("value"));
+    assertThat(configuration.getConnectorProvider(), instanceOf(Apache5ConnectorProvider.class));
+  }
+
+  @Test
+  void createRegistersPoolMetrics() {
+    PooledHttpClient.create(SYSTEM, ClientBuilder.newClient(), null, meterRegistry);
+    assertThat(connections("leased"), is(0.0));
+    assertThat(connections("pending"), is(0.0));
+    assertThat(connections("available"), is(0.0));
+    // The library default.
+    assertThat(connections("max"), is(25.0));
+  }
+}
@@ -0,0 +1,202 @@
+package bio.terra.catalog.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import bio.terra.catalog.config.FanOutConfiguration;
+import bio.terra.common.exception.NotFoundException;
+import bio.terra.common.iam.BearerToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RequestCoalescerTest {
+  private static final StorageSystem SYSTEM = StorageSystem.TERRA_DATA_REPO;
+  private static final String METHOD = "getRole";
+
+  @Mock private BearerToken bearerToken;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private RequestCoalescer coalescer;
+
+  @BeforeEach
+  void beforeEach() {
+    when(bearerToken.getToken()).thenReturn("token");
+    coalescer = new RequestCoalescer(bearerToken, new FanOutConfiguration(1, 1, 1), meterRegistry);
+  }
+
+  @AfterEach
+  void afterEach() {
+    executor.shutdownNow();
+  }
+
+  /** Start a call on another thread that blocks until {@code release} is counted down. */
+  private <T> CompletableFuture<T> startBlockedCall(
+      CountDownLatch started, CountDownLatch release, Supplier<T> result) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            coalescer.execute(
+                SYSTEM,
+                METHOD,
+                List.of("id"),
+                () -> {
+                  started.countDown();
+                  await(release);
+                  return result.get();
+                }),
+        executor);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void concurrentCallsShareResult() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var calls = new AtomicInteger();
+    var first =
+        startBlockedCall(
+            started,
+            release,
+            () -> {
+              calls.incrementAndGet();
+              return "result";
+            });
+    await(started);
+
+    // This call overlaps the first call, so it waits for it instead of calling the system.
+    var second =
+        CompletableFuture.supplyAsync(
+            () ->
+                coalescer.execute(
+                    SYSTEM,
+                    METHOD,
+                    List.of("id"),
+                    () -> {
+                      calls.incrementAndGet();
+                      return "other result";
+                    }));
+    while (meterRegistry.find(RequestCoalescer.COALESCED_METRIC).counter() == null) {
+      Thread.onSpinWait();
+    }
+    release.countDown();
+
+    assertThat(first.get(10, TimeUnit.SECONDS), is("result"));
+    assertThat(second.get(10, TimeUnit.SECONDS), is("result"));
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  void concurrentCallsShareException() {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    startBlockedCall(
+        started,
+        release,
+        () -> {
+          throw new NotFoundException("not found");
+        });
+    await(started);
+
+    var second =
+        CompletableFuture.runAsync(
+            () -> {
+              while (meterRegistry.find(RequestCoalescer.COALESCED_METRIC).counter() == null) {
+                Thread.onSpinWait();
+              }
+              release.countDown();
+            });
+    assertThrows(
+        NotFoundException.class,
+        () -> coalescer.execute(SYSTEM, METHOD, List.of("id"), () -> "unused"));
+    second.join();
+  }
+
+  @Test
+  void sequentialCallsAreNotShared() {
+    var calls = new AtomicInteger();
+    Supplier<Integer> call = calls::incrementAndGet;
+    assertThat(coalescer.execute(SYSTEM, METHOD, List.of("id"), call), is(1));
+    assertThat(coalescer.execute(SYSTEM, METHOD, List.of("id"), call), is(2));
+  }
+
+  @Test
+  void differentArgumentsAreNotShared() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var first = startBlockedCall(started, release, () -> "first");
+    await(started);
+    assertThat(
+        coalescer.execute(SYSTEM, METHOD, List.of("other id"), () -> "second"), is("second"));
+    release.countDown();
+    assertThat(first.get(10, TimeUnit.SECONDS), is("first"));
+  }
+
+  @Test
+  void waitingCallTimesOut() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var first = startBlockedCall(started, release, () -> "first");
+    await(started);
+    // The first call takes longer than the one second timeout.
+    assertThrows(
+        FanOutTimeoutException.class,
+        () -> coalescer.execute(SYSTEM, METHOD, List.of("id"), () -> "unused"));
+    release.countDown();
+    assertThat(first.get(10, TimeUnit.SECONDS), is("first"));
+  }
+
+  @Test
+  void waitingCallIsInterrupted() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    startBlockedCall(started, release, () -> "first");
+    await(started);
+
+    var waiting = new CompletableFuture<Thread>();
+    var second =
+        CompletableFuture.supplyAsync(
+            () -> {
+              waiting.complete(Thread.currentThread());
+              try {
+                return coalescer.execute(SYSTEM, METHOD, List.of("id"), () -> "unused");
+              } finally {
+                // The interrupt must be preserved for the caller.
+                assertThat(Thread.interrupted(), is(true));
+              }
+            });
+    while (meterRegistry.find(RequestCoalescer.COALESCED_METRIC).counter() == null) {
+      Thread.onSpinWait();
+    }
+    waiting.get(10, TimeUnit.SECONDS).interrupt();
+
+    var e = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+    assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+    release.countDown();
+  }
+}
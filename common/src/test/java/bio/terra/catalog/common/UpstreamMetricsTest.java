@@ -0,0 +1,63 @@
+package bio.terra.catalog.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.common.exception.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class UpstreamMetricsTest {
+  private static final String SYSTEM = StorageSystem.TERRA_WORKSPACE.name();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final UpstreamMetrics upstreamMetrics = new UpstreamMetrics(meterRegistry);
+
+  @Test
+  void callsAreTimed() {
+    assertThat(upstreamMetrics.record(SYSTEM, "listWorkspaces", () -> "result"), is("result"));
+    upstreamMetrics.record(SYSTEM, "listWorkspaces", () -> "result");
+    var timer =
+        meterRegistry
+            .get(UpstreamMetrics.REQUESTS_METRIC)
+            .tag("system", SYSTEM)
+            .tag("method", "listWorkspaces")
+            .timer();
+    assertThat(timer.count(), is(2L));
+    assertThat(
+        meterRegistry
+            .get(UpstreamMetrics.ACTIVE_METRIC)
+            .tag("system", SYSTEM)
+            .tag("method", "listWorkspaces")
+            .gauge()
+            .value(),
+        is(0.0));
+  }
+
+  @Test
+  void errorsAreCounted() {
+    UpstreamMetrics.Call<String, NotFoundException> call =
+        () -> {
+          throw new NotFoundException("not found");
+        };
+    assertThrows(
+        NotFoundException.class, () -> upstreamMetrics.record(SYSTEM, "getWorkspaceById", call));
+    assertThat(
+        meterRegistry
+            .get(UpstreamMetrics.ERRORS_METRIC)
+            .tag("system", SYSTEM)
+            .tag("method", "getWorkspaceById")
+            .tag("exception", "NotFoundException")
+            .counter()
+            .count(),
+        is(1.0));
+    assertThat(
+        meterRegistry
+            .get(UpstreamMetrics.REQUESTS_METRIC)
+            .tag("method", "getWorkspaceById")
+            .timer()
+            .count(),
+        is(1L));
+  }
+}
@@ -0,0 +1,68 @@
+package bio.terra.catalog.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.dbcp2.PoolingDataSource;
+import org.junit.jupiter.api.Test;
+
+class BaseDatabaseConfigurationTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private static BaseDatabaseConfiguration createConfiguration(
+      BaseDatabaseConfiguration.PoolImplementation poolImplementation) {
+    var config = new BaseDatabaseConfiguration();
+    config.setUri("jdbc:postgresql://localhost:5432/db");
+    config.setUsername("user");
+    config.setPassword("password");
+    config.setPoolImplementation(poolImplementation);
+    config.setMaxTotal(4);
+    config.setMinIdle(1);
+    config.setMaxWaitMillis(1000);
+    return config;
+  }
+
+  private double connections(String state) {
+    return meterRegistry
+        .get(BaseDatabaseConfiguration.CONNECTIONS_METRIC)
+        .tag("state", state)
+        .gauge()
+        .value();
+  }
+
+  @Test
+  void dbcpDataSource() {
+    var config = createConfiguration(BaseDatabaseConfiguration.PoolImplementation.DBCP);
+    assertThat(config.getDataSource(), instanceOf(PoolingDataSource.class));
+    config.bindPoolMetrics(meterRegistry);
+    assertThat(connections("active"), is(0.0));
+    assertThat(connections("pending"), is(0.0));
+    assertThat(connections("max"), is(4.0));
+  }
+
+  @Test
+  void hikariDataSource() {
+    var config = createConfiguration(BaseDatabaseConfiguration.PoolImplementation.HIKARI);
+    var dataSource = (HikariDataSource) config.getDataSource();
+    assertThat(dataSource.getMaximumPoolSize(), is(4));
+    assertThat(dataSource.getMinimumIdle(), is(1));
+    assertThat(dataSource.getConnectionTimeout(), is(1000L));
+    // The pool hasn't been started, so there are no connections.
+    config.bindPoolMetrics(meterRegistry);
+    assertThat(connections("idle"), is(0.0));
+  }
+
+  @Test
+  void hikariUnlimitedMaxTotalUsesDefault() {
+    var config = createConfiguration(BaseDatabaseConfiguration.PoolImplementation.HIKARI);
+    config.setMaxTotal(-1);
+    var dataSource = (HikariDataSource) config.getDataSource();
+    assertThat(
+        dataSource.getMaximumPoolSize(), is(BaseDatabaseConfiguration.DEFAULT_HIKARI_MAX_TOTAL));
+    config.bindPoolMetrics(meterRegistry);
+    assertThat(connections("max"), is((double) BaseDatabaseConfiguration.DEFAULT_HIKARI_MAX_TOTAL));
+  }
+}
@@ -0,0 +1,24 @@
+package bio.terra.catalog.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGProperty;
+
+class CatalogDatabaseConfigurationTest {
+
+  @Test
+  void driverProperties() {
+    var config = new CatalogDatabaseConfiguration();
+    config.setPrepareThreshold(1);
+    config.setPreparedStatementCacheQueries(100);
+    var props = config.getDriverProperties();
+    assertThat(PGProperty.PREPARE_THRESHOLD.get(props), is("1"));
+    assertThat(PGProperty.PREPARED_STATEMENT_CACHE_QUERIES.get(props), is("100"));
+    // Unset properties are left to the driver's default.
+    assertThat(
+        props.getProperty(PGProperty.PREPARED_STATEMENT_CACHE_SIZE_MIB.getName()), nullValue());
+  }
+}
@@ -8,6 +8,7 @@ import bio.terra.catalog.config.DatarepoConfiguration;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.datarepo.client.ApiClient;
 import bio.terra.datarepo.client.auth.OAuth;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,7 +29,11 @@ class DatarepoClientTest {
   @BeforeEach
   void beforeEach() {
     when(bearerToken.getToken()).thenReturn(TOKEN);
-    client = new DatarepoClient(new DatarepoConfiguration(BASE_PATH), bearerToken);
+    client =
+        new DatarepoClient(
+            new DatarepoConfiguration(BASE_PATH, null, 0, 0),
+            bearerToken,
+            new SimpleMeterRegistry());
   }
 
   @Test
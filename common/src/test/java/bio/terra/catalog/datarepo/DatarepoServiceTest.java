@@ -1,19 +1,36 @@
 package bio.terra.catalog.datarepo;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import bio.terra.catalog.common.FanOutExecutor;
+import bio.terra.catalog.common.PermissionContext;
+import bio.terra.catalog.common.RequestCoalescer;
+import bio.terra.catalog.common.StorageSystem;
 import bio.terra.catalog.common.StorageSystemInformation;
+import bio.terra.catalog.common.UpstreamMetrics;
+import bio.terra.catalog.config.DatarepoConfiguration;
+import bio.terra.catalog.config.FanOutConfiguration;
+import bio.terra.catalog.config.PreviewCacheConfiguration;
+import bio.terra.catalog.config.SnapshotSchemaCacheConfiguration;
 import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.SystemStatusSystems;
 import bio.terra.catalog.model.TableMetadata;
+import bio.terra.catalog.service.dataset.CatalogIndex;
+import bio.terra.catalog.service.dataset.Dataset;
 import bio.terra.catalog.service.dataset.DatasetAccessLevel;
 import bio.terra.common.exception.BadRequestException;
 import bio.terra.common.exception.NotFoundException;
+import bio.terra.common.iam.BearerToken;
 import bio.terra.datarepo.api.SnapshotsApi;
 import bio.terra.datarepo.api.UnauthenticatedApi;
 import bio.terra.datarepo.client.ApiException;
@@ -28,9 +45,14 @@ import bio.terra.datarepo.model.SnapshotRetrieveIncludeModel;
 import bio.terra.datarepo.model.SnapshotSourceModel;
 import bio.terra.datarepo.model.SnapshotSummaryModel;
 import bio.terra.datarepo.model.TableModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -42,15 +64,46 @@ import org.springframework.http.HttpStatus;
 
 @ExtendWith(MockitoExtension.class)
 class DatarepoServiceTest {
+  private static final int PAGE_SIZE = 2;
+  private static final QueryDataRequestModel PREVIEW_QUERY =
+      new QueryDataRequestModel().offset(0).limit(10);
+  private static final List<SnapshotRetrieveIncludeModel> READ_ACCESS_CHECK =
+      List.of(SnapshotRetrieveIncludeModel.NONE);
+
   private DatarepoService datarepoService;
+  private FanOutExecutor fanOutExecutor;
 
   @Mock private DatarepoClient datarepoClient;
   @Mock private SnapshotsApi snapshotsApi;
   @Mock private UnauthenticatedApi unauthenticatedApi;
+  @Mock private BearerToken bearerToken;
+  @Mock private CatalogIndex catalogIndex;
 
   @BeforeEach
   void beforeEach() {
-    datarepoService = new DatarepoService(datarepoClient);
+    fanOutExecutor =
+        new FanOutExecutor(new FanOutConfiguration(2, 10, 10), new SimpleMeterRegistry());
+    datarepoService =
+        new DatarepoService(
+            datarepoClient,
+            new RequestCoalescer(
+                bearerToken, new FanOutConfiguration(2, 10, 10), new SimpleMeterRegistry()),
+            new PermissionContext(),
+            new DatarepoConfiguration(null, null, PAGE_SIZE, 2),
+            catalogIndex,
+            fanOutExecutor,
+            new SnapshotSchemaCacheConfiguration(true, 100),
+            new SnapshotPreviewCache(
+                new PreviewCacheConfiguration(true, 100, null, 0),
+                new ObjectMapper(),
+                new SimpleMeterRegistry()),
+            new UpstreamMetrics(new SimpleMeterRegistry()),
+            new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  void afterEach() {
+    fanOutExecutor.shutdown();
   }
 
   private void mockSnapshots() {
@@ -61,16 +114,46 @@ class DatarepoServiceTest {
     when(datarepoClient.unauthenticatedApi()).thenReturn(unauthenticatedApi);
   }
 
+  private void mockCatalog(List<UUID> snapshotIds) {
+    when(catalogIndex.isLoaded()).thenReturn(true);
+    when(catalogIndex.listAllDatasets(StorageSystem.TERRA_DATA_REPO))
+        .thenReturn(
+            snapshotIds.stream()
+                .map(id -> new Dataset(id.toString(), StorageSystem.TERRA_DATA_REPO, null))
+                .toList());
+  }
+
+  private void mockPage(int offset, int total, List<UUID> snapshotIds) throws ApiException {
+    var page =
+        new EnumerateSnapshotModel()
+            .filteredTotal(total)
+            .items(snapshotIds.stream().map(id -> new SnapshotSummaryModel().id(id)).toList())
+            .roleMap(
+                snapshotIds.stream()
+                    .collect(
+                        Collectors.toMap(
+                            UUID::toString, id -> List.of(DatarepoService.READER_ROLE_NAME))));
+    when(snapshotsApi.enumerateSnapshots(
+            eq(offset), eq(PAGE_SIZE), any(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(page);
+  }
+
+  private static List<UUID> randomIds(int count) {
+    return Stream.generate(UUID::randomUUID).limit(count).toList();
+  }
+
   @Test
   void getSnapshots() throws Exception {
     mockSnapshots();
     UUID snapshotId = UUID.randomUUID();
+    mockCatalog(List.of(snapshotId));
     var items = Map.of(snapshotId.toString(), List.of("steward"));
     var expectedItems =
         Map.of(
             snapshotId.toString(), new StorageSystemInformation(DatasetAccessLevel.OWNER, "1234"));
     var esm =
         new EnumerateSnapshotModel()
+            .filteredTotal(1)
             .items(List.of(new SnapshotSummaryModel().id(snapshotId).phsId("1234")))
             .roleMap(items);
     when(snapshotsApi.enumerateSnapshots(
@@ -80,6 +163,72 @@ class DatarepoServiceTest {
     assertThat(returnedItems, is(expectedItems));
   }
 
+  @Test
+  void getSnapshotsReadsEveryPage() throws Exception {
+    mockSnapshots();
+    var snapshotIds = randomIds(5);
+    mockCatalog(snapshotIds);
+    // The first page is read alone, and then the rest two at a time.
+    mockPage(0, 5, snapshotIds.subList(0, 2));
+    mockPage(2, 5, snapshotIds.subList(2, 4));
+    mockPage(4, 5, snapshotIds.subList(4, 5));
+    var expectedItems =
+        snapshotIds.stream()
+            .collect(
+                Collectors.toMap(
+                    UUID::toString,
+                    id -> new StorageSystemInformation(DatasetAccessLevel.READER)));
+    assertThat(datarepoService.getDatasets(), is(expectedItems));
+  }
+
+  @Test
+  void getSnapshotsStopsWhenCatalogedSnapshotsAreSeen() throws Exception {
+    mockSnapshots();
+    var snapshotIds = randomIds(2);
+    mockCatalog(snapshotIds);
+    mockPage(0, 1000, snapshotIds);
+    assertThat(datarepoService.getDatasets().size(), is(2));
+    verify(snapshotsApi)
+        .enumerateSnapshots(any(), any(), any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void getSnapshotsReadsEveryPageWithoutCatalogIndex() throws Exception {
+    mockSnapshots();
+    var snapshotIds = randomIds(3);
+    mockPage(0, 3, snapshotIds.subList(0, 2));
+    mockPage(2, 3, snapshotIds.subList(2, 3));
+    assertThat(datarepoService.getDatasets().keySet(), hasSize(3));
+    verify(catalogIndex, never()).listAllDatasets(any(StorageSystem.class));
+  }
+
+  @Test
+  void getSnapshotsWithoutRoles() throws Exception {
+    mockSnapshots();
+    var snapshotId = UUID.randomUUID();
+    mockCatalog(List.of(snapshotId));
+    when(snapshotsApi.enumerateSnapshots(
+            any(), any(), any(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(
+            new EnumerateSnapshotModel()
+                .filteredTotal(1)
+                .items(List.of(new SnapshotSummaryModel().id(snapshotId)))
+                .roleMap(Map.of()));
+    assertThat(
+        datarepoService.getDatasets(),
+        is(
+            Map.of(
+                snapshotId.toString(),
+                new StorageSystemInformation(DatasetAccessLevel.NO_ACCESS))));
+  }
+
+  @Test
+  void getSnapshotsWithoutCatalogedSnapshots() {
+    mockCatalog(List.of());
+    assertThat(datarepoService.getDatasets(), is(Map.of()));
+    verifyNoInteractions(datarepoClient);
+  }
+
   @Test
   void getSnapshot() throws Exception {
     mockSnapshots();
@@ -97,9 +246,28 @@ class DatarepoServiceTest {
         is(new StorageSystemInformation(DatasetAccessLevel.OWNER, phsId)));
   }
 
+  @Test
+  void getSnapshotReusesRole() throws Exception {
+    mockSnapshots();
+    UUID snapshotId = UUID.randomUUID();
+    when(snapshotsApi.retrieveSnapshot(snapshotId, List.of(SnapshotRetrieveIncludeModel.SOURCES)))
+        .thenReturn(
+            new SnapshotModel()
+                .addSourceItem(new SnapshotSourceModel().dataset(new DatasetSummaryModel())));
+    when(snapshotsApi.retrieveUserSnapshotRoles(snapshotId))
+        .thenReturn(List.of(DatarepoService.READER_ROLE_NAME));
+    // The role check for the permission check is reused when the snapshot is retrieved.
+    assertThat(datarepoService.getRole(snapshotId.toString()), is(DatasetAccessLevel.READER));
+    assertThat(
+        datarepoService.getDataset(snapshotId.toString()),
+        is(new StorageSystemInformation(DatasetAccessLevel.READER)));
+    verify(snapshotsApi).retrieveUserSnapshotRoles(snapshotId);
+  }
+
   @Test
   void getSnapshotsException() throws Exception {
     mockSnapshots();
+    mockCatalog(List.of(UUID.randomUUID()));
     when(snapshotsApi.enumerateSnapshots(
             any(), any(), any(), any(), any(), any(), any(), any(), any()))
         .thenThrow(new ApiException());
@@ -219,10 +387,10 @@ class DatarepoServiceTest {
                                 List.of(new ColumnModel().name("a"), new ColumnModel().name("b"))),
                         new TableModel().rowCount(0).name("empty"))));
     List<Object> rows = List.of(Map.of("a", 1, "b", 2), Map.of("a", 3, "b", 4));
-    when(snapshotsApi.querySnapshotDataById(id, tableName, new QueryDataRequestModel().limit(10)))
+    when(snapshotsApi.querySnapshotDataById(id, tableName, PREVIEW_QUERY))
         .thenReturn(new SnapshotPreviewModel().result(rows));
     assertThat(
-        datarepoService.previewTable(id.toString(), tableName, 10),
+        datarepoService.previewTable(id.toString(), tableName, 0, 10, null),
         is(
             new DatasetPreviewTable()
                 .columns(
@@ -232,6 +400,71 @@ class DatarepoServiceTest {
                 .rows(rows)));
   }
 
+  @Test
+  void previewTableSelectsColumns() throws Exception {
+    mockSnapshots();
+    var id = UUID.randomUUID();
+    var tableName = "table";
+    var table =
+        new TableModel()
+            .name(tableName)
+            .columns(List.of(new ColumnModel().name("a"), new ColumnModel().name("b")));
+    when(snapshotsApi.retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES)))
+        .thenReturn(new SnapshotModel().tables(List.of(table)));
+    when(snapshotsApi.querySnapshotDataById(id, tableName, PREVIEW_QUERY))
+        .thenReturn(new SnapshotPreviewModel().result(List.of(Map.of("a", 1, "b", 2))));
+    assertThat(
+        datarepoService.previewTable(id.toString(), tableName, 0, 10, List.of("b", "unknown")),
+        is(
+            new DatasetPreviewTable()
+                .columns(List.of(new bio.terra.catalog.model.ColumnModel().name("b")))
+                .rows(List.of(Map.of("b", 2)))));
+  }
+
+  @Test
+  void previewTableUsesCachedPreview() throws Exception {
+    mockSnapshots();
+    var id = UUID.randomUUID();
+    var tableName = "table";
+    when(snapshotsApi.retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES)))
+        .thenReturn(
+            new SnapshotModel()
+                .tables(
+                    List.of(
+                        new TableModel()
+                            .name(tableName)
+                            .columns(List.of(new ColumnModel().name("a"))))));
+    when(snapshotsApi.querySnapshotDataById(id, tableName, PREVIEW_QUERY))
+        .thenReturn(new SnapshotPreviewModel().result(List.of(Map.of("a", 1))));
+    when(snapshotsApi.retrieveSnapshot(id, READ_ACCESS_CHECK)).thenReturn(new SnapshotModel());
+    var preview = datarepoService.previewTable(id.toString(), tableName, 0, 10, null);
+    assertThat(datarepoService.previewTable(id.toString(), tableName, 0, 10, null), is(preview));
+    verify(snapshotsApi).querySnapshotDataById(id, tableName, PREVIEW_QUERY);
+  }
+
+  @Test
+  void previewTableCachedPreviewRequiresAccess() throws Exception {
+    mockSnapshots();
+    var id = UUID.randomUUID();
+    var tableName = "table";
+    when(snapshotsApi.retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES)))
+        .thenReturn(
+            new SnapshotModel()
+                .tables(List.of(new TableModel().name(tableName).columns(List.of()))));
+    when(snapshotsApi.querySnapshotDataById(id, tableName, PREVIEW_QUERY))
+        .thenReturn(new SnapshotPreviewModel().result(List.of()));
+    when(snapshotsApi.retrieveSnapshot(id, READ_ACCESS_CHECK))
+        .thenThrow(new ApiException(HttpStatus.FORBIDDEN.value(), "forbidden"));
+    String snapshotId = id.toString();
+    datarepoService.previewTable(snapshotId, tableName, 0, 10, null);
+    DatarepoException e =
+        assertThrows(
+            DatarepoException.class,
+            () -> datarepoService.previewTable(snapshotId, tableName, 0, 10, null));
+    assertThat(e.getStatusCode(), is(HttpStatus.FORBIDDEN));
+    verify(snapshotsApi).querySnapshotDataById(id, tableName, PREVIEW_QUERY);
+  }
+
   @Test
   void previewTableMissingTable() throws Exception {
     mockSnapshots();
@@ -241,7 +474,8 @@ class DatarepoServiceTest {
         .thenReturn(new SnapshotModel().tables(List.of()));
     String snaphsotId = id.toString();
     assertThrows(
-        NotFoundException.class, () -> datarepoService.previewTable(snaphsotId, "missing", 10));
+        NotFoundException.class,
+        () -> datarepoService.previewTable(snaphsotId, "missing", 0, 10, null));
   }
 
   @Test
@@ -253,18 +487,62 @@ class DatarepoServiceTest {
 
     when(snapshotsApi.retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES)))
         .thenReturn(new SnapshotModel().tables(List.of(new TableModel().name(tableName))));
-    when(snapshotsApi.querySnapshotDataById(id, tableName, new QueryDataRequestModel().limit(10)))
+    when(snapshotsApi.querySnapshotDataById(id, tableName, PREVIEW_QUERY))
         .thenThrow(new ApiException(HttpStatus.NOT_FOUND.value(), errorMessage));
 
     String snapshotId = id.toString();
     DatarepoException t =
         assertThrows(
-            DatarepoException.class, () -> datarepoService.previewTable(snapshotId, tableName, 10));
+            DatarepoException.class,
+            () -> datarepoService.previewTable(snapshotId, tableName, 0, 10, null));
 
     assertThat(t.getStatusCode(), is(HttpStatus.NOT_FOUND));
     assertThat(t.getMessage(), is("bio.terra.datarepo.client.ApiException: " + errorMessage));
+    // The snapshot's tables are now cached, so the user's access is checked instead.
+    when(snapshotsApi.retrieveSnapshot(id, READ_ACCESS_CHECK)).thenReturn(new SnapshotModel());
     assertThrows(
-        NotFoundException.class, () -> datarepoService.previewTable(snapshotId, "missing", 10));
+        NotFoundException.class,
+        () -> datarepoService.previewTable(snapshotId, "missing", 0, 10, null));
+  }
+
+  @Test
+  void getPreviewTablesUsesCachedTables() throws Exception {
+    mockSnapshots();
+    var id = UUID.randomUUID();
+    when(snapshotsApi.retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES)))
+        .thenReturn(new SnapshotModel().tables(List.of(new TableModel().rowCount(1).name("t"))));
+    when(snapshotsApi.retrieveSnapshot(id, READ_ACCESS_CHECK)).thenReturn(new SnapshotModel());
+    var expected = List.of(new TableMetadata().name("t").hasData(true));
+    assertThat(datarepoService.getPreviewTables(id.toString()), is(expected));
+    assertThat(datarepoService.getPreviewTables(id.toString()), is(expected));
+    verify(snapshotsApi).retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES));
+  }
+
+  @Test
+  void getPreviewTablesCachedTablesRequireAccess() throws Exception {
+    mockSnapshots();
+    var id = UUID.randomUUID();
+    when(snapshotsApi.retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES)))
+        .thenReturn(new SnapshotModel().tables(List.of(new TableModel().rowCount(1).name("t"))));
+    when(snapshotsApi.retrieveSnapshot(id, READ_ACCESS_CHECK))
+        .thenThrow(new ApiException(HttpStatus.FORBIDDEN.value(), "forbidden"));
+    String snapshotId = id.toString();
+    datarepoService.getPreviewTables(snapshotId);
+    assertThrows(DatarepoException.class, () -> datarepoService.getPreviewTables(snapshotId));
+  }
+
+  @Test
+  void cachedTablesAccessIsCheckedOncePerRequest() throws Exception {
+    mockSnapshots();
+    var id = UUID.randomUUID();
+    when(snapshotsApi.retrieveSnapshot(id, List.of(SnapshotRetrieveIncludeModel.TABLES)))
+        .thenReturn(new SnapshotModel().tables(List.of(new TableModel().rowCount(1).name("t"))));
+    when(snapshotsApi.retrieveSnapshot(id, READ_ACCESS_CHECK)).thenReturn(new SnapshotModel());
+    // The service's permission context is shared by these calls, as in a single request.
+    datarepoService.getPreviewTables(id.toString());
+    datarepoService.getPreviewTables(id.toString());
+    datarepoService.getPreviewTables(id.toString());
+    verify(snapshotsApi).retrieveSnapshot(id, READ_ACCESS_CHECK);
   }
 
   @Test
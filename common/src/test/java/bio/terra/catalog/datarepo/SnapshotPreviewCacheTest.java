@@ -0,0 +1,107 @@
+package bio.terra.catalog.datarepo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import bio.terra.catalog.config.PreviewCacheConfiguration;
+import bio.terra.catalog.model.ColumnModel;
+import bio.terra.catalog.model.DatasetPreviewTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotPreviewCacheTest {
+  private static final int MAX_ROWS = 10;
+  private static final SnapshotPreviewCache.Key KEY =
+      new SnapshotPreviewCache.Key("snapshot", "table", 0, 30);
+  private static final SnapshotPreviewCache.Key OTHER_KEY =
+      new SnapshotPreviewCache.Key("snapshot", "other table", 0, 30);
+  private static final DatasetPreviewTable PREVIEW =
+      new DatasetPreviewTable()
+          .columns(List.of(new ColumnModel().name("a"), new ColumnModel().name("b")))
+          .rows(List.of(Map.of("a", 1, "b", "two")));
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @TempDir private Path directory;
+
+  private SnapshotPreviewCache createCache(boolean enabled, String diskDirectory, long maxBytes) {
+    return new SnapshotPreviewCache(
+        new PreviewCacheConfiguration(enabled, MAX_ROWS, diskDirectory, 0),
+        new ObjectMapper(),
+        meterRegistry,
+        maxBytes);
+  }
+
+  private long fileCount() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  void getReturnsCachedPreview() {
+    var cache = createCache(true, null, 0);
+    assertThat(cache.get(KEY), nullValue());
+    cache.put(KEY, PREVIEW);
+    assertThat(cache.get(KEY), is(PREVIEW));
+    assertThat(cache.get(OTHER_KEY), nullValue());
+  }
+
+  @Test
+  void memoryIsBoundedByRows() {
+    var cache = createCache(true, null, 0);
+    var largePreview =
+        new DatasetPreviewTable()
+            .columns(List.of(new ColumnModel().name("a")))
+            .rows(Collections.<Object>nCopies(MAX_ROWS + 1, Map.of("a", 1)));
+    cache.put(KEY, largePreview);
+    assertThat(cache.get(KEY), nullValue());
+  }
+
+  @Test
+  void disabledCacheKeepsNothing() {
+    var cache = createCache(false, directory.toString(), Long.MAX_VALUE);
+    cache.put(KEY, PREVIEW);
+    assertThat(cache.get(KEY), nullValue());
+  }
+
+  @Test
+  void previewIsReadFromDisk() {
+    createCache(true, directory.toString(), Long.MAX_VALUE).put(KEY, PREVIEW);
+    // A new cache, as after a restart, has nothing in memory.
+    var cache = createCache(true, directory.toString(), Long.MAX_VALUE);
+    assertThat(cache.get(KEY), is(PREVIEW));
+    assertThat(cache.get(OTHER_KEY), nullValue());
+    assertThat(
+        meterRegistry.get(SnapshotPreviewCache.DISK_METRIC).tag("result", "hit").counter().count(),
+        is(1.0));
+  }
+
+  @Test
+  void leastRecentlyUsedFilesAreDeleted() throws Exception {
+    // Only one file fits on disk.
+    var cache = createCache(true, directory.toString(), 1);
+    cache.put(KEY, PREVIEW);
+    cache.put(OTHER_KEY, PREVIEW);
+    assertThat(fileCount(), is(1L));
+    var restarted = createCache(true, directory.toString(), 1);
+    assertThat(restarted.get(KEY), nullValue());
+    assertThat(restarted.get(OTHER_KEY), is(PREVIEW));
+  }
+
+  @Test
+  void partlyWrittenFilesAreDeleted() throws Exception {
+    Files.createFile(directory.resolve("preview123.tmp"));
+    createCache(true, directory.toString(), Long.MAX_VALUE);
+    assertThat(fileCount(), is(0L));
+  }
+}
@@ -2,8 +2,11 @@ package bio.terra.catalog.iam;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 
+import bio.terra.catalog.config.SamClientConfiguration;
 import bio.terra.catalog.config.SamConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
 import org.broadinstitute.dsde.workbench.client.sam.auth.OAuth;
 import org.junit.jupiter.api.Test;
@@ -15,8 +18,14 @@ class SamClientTest {
 
   private final SamClient client;
 
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
   SamClientTest() {
-    client = new SamClient(new SamConfiguration(BASE_PATH, "resourceId"));
+    client =
+        new SamClient(
+            new SamConfiguration(BASE_PATH, "resourceId"),
+            new SamClientConfiguration(10, 60, 0, 5, 0),
+            meterRegistry);
   }
 
   @Test
@@ -26,6 +35,21 @@ class SamClientTest {
     validateClient(client.resourcesApi(TOKEN).getApiClient(), TOKEN);
   }
 
+  @Test
+  void httpClientIsShared() {
+    var httpClient = client.statusApi().getApiClient().getHttpClient();
+    assertThat(client.resourcesApi(TOKEN).getApiClient().getHttpClient(), sameInstance(httpClient));
+    assertThat(httpClient.connectTimeoutMillis(), is(5000));
+    assertThat(
+        meterRegistry.get(SamClient.CONNECTIONS_METRIC).tag("state", "idle").gauge().value(),
+        is(0.0));
+  }
+
+  @Test
+  void unauthenticatedClientIsShared() {
+    assertThat(client.statusApi().getApiClient(), sameInstance(client.statusApi().getApiClient()));
+  }
+
   private static void validateClient(ApiClient client, String token) {
     assertThat(client.getBasePath(), is(BASE_PATH));
     OAuth oauth = (OAuth) client.getAuthentication(AUTH_NAME);
@@ -1,20 +1,34 @@
 package bio.terra.catalog.iam;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import bio.terra.catalog.common.PermissionContext;
+import bio.terra.catalog.common.UpstreamMetrics;
+import bio.terra.catalog.config.SamActionCacheConfiguration;
 import bio.terra.catalog.config.SamConfiguration;
 import bio.terra.common.exception.ErrorReportException;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.common.sam.SamRetry;
+import com.google.common.base.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.broadinstitute.dsde.workbench.client.sam.ApiException;
 import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
 import org.broadinstitute.dsde.workbench.client.sam.api.StatusApi;
+import org.broadinstitute.dsde.workbench.client.sam.api.UsersApi;
 import org.broadinstitute.dsde.workbench.client.sam.model.SystemStatus;
+import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,14 +41,48 @@ class SamServiceTest {
   @Mock private SamClient samClient;
   @Mock private ResourcesApi resourcesApi;
   @Mock private StatusApi statusApi;
+  @Mock private UsersApi usersApi;
   @Mock private BearerToken bearerToken;
+  @Mock private PermissionContext permissionContext;
 
   private static final String TOKEN = "token";
+  private static final int TTL_SECONDS = 60;
   private SamService samService;
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final FakeTicker ticker = new FakeTicker();
+
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advanceSeconds(long seconds) {
+      nanos += TimeUnit.SECONDS.toNanos(seconds);
+    }
+  }
 
   @BeforeEach
   void beforeEach() {
-    samService = new SamService(new SamConfiguration("", ""), samClient, bearerToken);
+    // Each call is treated as a separate request, so that the cache is used.
+    lenient()
+        .when(permissionContext.memoize(any(), any(), any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+    samService = createService(permissionContext, true);
+  }
+
+  private SamService createService(PermissionContext permissionContext, boolean cacheEnabled) {
+    return new SamService(
+        new SamConfiguration("", ""),
+        samClient,
+        bearerToken,
+        permissionContext,
+        new SamActionCacheConfiguration(cacheEnabled, TTL_SECONDS, 100),
+        new UpstreamMetrics(meterRegistry),
+        meterRegistry,
+        ticker);
   }
 
   private void mockResources() {
@@ -80,6 +128,32 @@ class SamServiceTest {
     assertFalse(samStatus.isOk());
   }
 
+  @Test
+  void getUserSubjectId() throws Exception {
+    when(bearerToken.getToken()).thenReturn(TOKEN);
+    when(samClient.usersApi(TOKEN)).thenReturn(usersApi);
+    when(usersApi.getUserStatusInfo()).thenReturn(new UserStatusInfo().userSubjectId("subject"));
+    assertThat(samService.getUserSubjectId(), is("subject"));
+  }
+
+  @Test
+  void userSubjectIdsAreCached() throws Exception {
+    when(bearerToken.getToken()).thenReturn(TOKEN);
+    when(samClient.usersApi(TOKEN)).thenReturn(usersApi);
+    when(usersApi.getUserStatusInfo()).thenReturn(new UserStatusInfo().userSubjectId("subject"));
+    assertThat(samService.getUserSubjectId(), is("subject"));
+    assertThat(samService.getUserSubjectId(), is("subject"));
+    verify(usersApi).getUserStatusInfo();
+  }
+
+  @Test
+  void getUserSubjectIdApiException() throws Exception {
+    when(bearerToken.getToken()).thenReturn(TOKEN);
+    when(samClient.usersApi(TOKEN)).thenReturn(usersApi);
+    when(usersApi.getUserStatusInfo()).thenThrow(new ApiException());
+    assertThrows(ErrorReportException.class, () -> samService.getUserSubjectId());
+  }
+
   @Test
   void hasGlobalActionApiException() throws ApiException, InterruptedException {
     mockResources();
@@ -88,4 +162,63 @@ class SamServiceTest {
         .thenThrow(new ApiException());
     assertThrows(ErrorReportException.class, () -> samService.hasGlobalAction(action));
   }
+
+  @Test
+  void globalActionsAreCached() throws Exception {
+    mockResources();
+    when(resourcesApi.resourceActionsV2(any(), any()))
+        .thenReturn(List.of(SamAction.READ_ANY_METADATA.value, "unknown_action"));
+    assertTrue(samService.hasGlobalAction(SamAction.READ_ANY_METADATA));
+    assertFalse(samService.hasGlobalAction(SamAction.UPDATE_ANY_METADATA));
+    verify(resourcesApi).resourceActionsV2(any(), any());
+    assertThat(
+        meterRegistry
+            .get("cache.gets")
+            .tag("cache", SamService.CACHE_NAME)
+            .tag("result", "hit")
+            .functionCounter()
+            .count(),
+        is(1.0));
+    // Only the call that reached Sam is timed.
+    assertThat(
+        meterRegistry
+            .get("catalog.upstream.requests")
+            .tag("system", SamService.SYSTEM_NAME)
+            .tag("method", "getGlobalActions")
+            .timer()
+            .count(),
+        is(1L));
+  }
+
+  @Test
+  void cachedGlobalActionsExpire() throws Exception {
+    mockResources();
+    when(resourcesApi.resourceActionsV2(any(), any()))
+        .thenReturn(List.of(SamAction.READ_ANY_METADATA.value), List.of());
+    assertTrue(samService.hasGlobalAction(SamAction.READ_ANY_METADATA));
+    ticker.advanceSeconds(TTL_SECONDS);
+    assertFalse(samService.hasGlobalAction(SamAction.READ_ANY_METADATA));
+  }
+
+  @Test
+  void globalActionsArePerUser() throws Exception {
+    when(bearerToken.getToken()).thenReturn(TOKEN, "other token");
+    when(samClient.resourcesApi(any())).thenReturn(resourcesApi);
+    when(resourcesApi.resourceActionsV2(any(), any()))
+        .thenReturn(List.of(SamAction.READ_ANY_METADATA.value), List.of());
+    assertTrue(samService.hasGlobalAction(SamAction.READ_ANY_METADATA));
+    assertFalse(samService.hasGlobalAction(SamAction.READ_ANY_METADATA));
+    verify(resourcesApi, times(2)).resourceActionsV2(any(), any());
+  }
+
+  @Test
+  void globalActionsAreMemoizedForRequest() throws Exception {
+    mockResources();
+    when(resourcesApi.resourceActionsV2(any(), any()))
+        .thenReturn(List.of(SamAction.READ_ANY_METADATA.value));
+    var requestService = createService(new PermissionContext(), false);
+    assertTrue(requestService.hasGlobalAction(SamAction.READ_ANY_METADATA));
+    assertFalse(requestService.hasGlobalAction(SamAction.DELETE_ANY_METADATA));
+    verify(resourcesApi).resourceActionsV2(any(), any());
+  }
 }
@@ -8,6 +8,7 @@ import bio.terra.catalog.config.RawlsConfiguration;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.rawls.client.ApiClient;
 import bio.terra.rawls.client.auth.OAuth;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,7 +28,9 @@ class RawlsClientTest {
   @BeforeEach
   void beforeEach() {
     when(bearerToken.getToken()).thenReturn(TOKEN);
-    client = new RawlsClient(new RawlsConfiguration(BASE_PATH), bearerToken);
+    client =
+        new RawlsClient(
+            new RawlsConfiguration(BASE_PATH, null), bearerToken, new SimpleMeterRegistry());
   }
 
   @Test
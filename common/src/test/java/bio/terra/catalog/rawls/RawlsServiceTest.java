@@ -9,15 +9,22 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import bio.terra.catalog.common.PermissionContext;
+import bio.terra.catalog.common.RequestCoalescer;
 import bio.terra.catalog.common.StorageSystemInformation;
+import bio.terra.catalog.common.UpstreamMetrics;
+import bio.terra.catalog.config.FanOutConfiguration;
+import bio.terra.catalog.config.WorkspaceNameCacheConfiguration;
 import bio.terra.catalog.model.ColumnModel;
 import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.TableMetadata;
 import bio.terra.catalog.service.dataset.DatasetAccessLevel;
 import bio.terra.common.exception.NotFoundException;
+import bio.terra.common.iam.BearerToken;
 import bio.terra.rawls.api.EntitiesApi;
 import bio.terra.rawls.api.StatusApi;
 import bio.terra.rawls.api.WorkspacesApi;
@@ -25,20 +32,25 @@ import bio.terra.rawls.client.ApiException;
 import bio.terra.rawls.model.Entity;
 import bio.terra.rawls.model.EntityCopyResponse;
 import bio.terra.rawls.model.EntityQueryResponse;
+import bio.terra.rawls.model.EntityQueryResultMetadata;
 import bio.terra.rawls.model.EntityTypeMetadata;
 import bio.terra.rawls.model.WorkspaceAccessLevel;
 import bio.terra.rawls.model.WorkspaceDetails;
 import bio.terra.rawls.model.WorkspaceListResponse;
 import bio.terra.rawls.model.WorkspaceName;
 import bio.terra.rawls.model.WorkspaceResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 
 @ExtendWith(MockitoExtension.class)
 class RawlsServiceTest {
@@ -50,10 +62,21 @@ class RawlsServiceTest {
 
   @Mock private StatusApi statusApi;
   @Mock private WorkspacesApi workspacesApi;
+  @Mock private BearerToken bearerToken;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
   @BeforeEach
   void beforeEach() {
-    rawlsService = new RawlsService(rawlsClient);
+    rawlsService =
+        new RawlsService(
+            rawlsClient,
+            new RequestCoalescer(
+                bearerToken, new FanOutConfiguration(2, 10, 10), new SimpleMeterRegistry()),
+            new PermissionContext(),
+            new WorkspaceNameCacheConfiguration(true, 60, 100),
+            new UpstreamMetrics(meterRegistry),
+            meterRegistry);
   }
 
   private void mockWorkspaces() {
@@ -157,7 +180,7 @@ class RawlsServiceTest {
     String tableName = "table";
     WorkspaceResponse response =
         new WorkspaceResponse().workspace(new WorkspaceDetails().name(name).namespace(namespace));
-    when(workspacesApi.getWorkspaceById(id, List.of())).thenReturn(response);
+    when(workspacesApi.getWorkspaceById(id, RawlsService.WORKSPACE_NAME)).thenReturn(response);
 
     var emptyTable = "empty";
     EntityTypeMetadata entityType =
@@ -176,7 +199,7 @@ class RawlsServiceTest {
             namespace,
             name,
             tableName,
-            null,
+            BigDecimal.ONE,
             BigDecimal.valueOf(10),
             null,
             null,
@@ -197,7 +220,71 @@ class RawlsServiceTest {
                 List.of(
                     Map.of("idName", "idValue1", "a", 1, "b", 2),
                     Map.of("idName", "idValue2", "a", 3, "b", 4)));
-    assertThat(rawlsService.previewTable(id, tableName, 10), is(previewResponse));
+    assertThat(rawlsService.previewTable(id, tableName, 0, 10, null), is(previewResponse));
+    // The workspace name is looked up once for both entity calls.
+    verify(workspacesApi).getWorkspaceById(id, RawlsService.WORKSPACE_NAME);
+  }
+
+  @Test
+  void previewTablePageAndColumns() throws Exception {
+    mockWorkspaces();
+    mockEntities();
+    String id = "abc";
+    String name = "name";
+    String namespace = "namespace";
+    String tableName = "table";
+    WorkspaceResponse response =
+        new WorkspaceResponse().workspace(new WorkspaceDetails().name(name).namespace(namespace));
+    when(workspacesApi.getWorkspaceById(id, RawlsService.WORKSPACE_NAME)).thenReturn(response);
+
+    EntityTypeMetadata entityType =
+        new EntityTypeMetadata().count(5).idName("idName").attributeNames(List.of("a", "b"));
+    when(entitiesApi.entityTypeMetadata(namespace, name, true, null))
+        .thenReturn(Map.of(tableName, entityType));
+    // Rows 3 and 4 are on the second and third pages of two rows.
+    when(entitiesApi.entityQuery(
+            namespace,
+            name,
+            tableName,
+            BigDecimal.valueOf(2),
+            BigDecimal.valueOf(2),
+            null,
+            null,
+            null,
+            null,
+            List.of("b"),
+            null,
+            null))
+        .thenReturn(
+            new EntityQueryResponse()
+                .resultMetadata(new EntityQueryResultMetadata().filteredPageCount(3))
+                .results(
+                    List.of(
+                        new Entity().name("idValue2").attributes(Map.of("a", 2, "b", 2)),
+                        new Entity().name("idValue3").attributes(Map.of("a", 3, "b", 3)))));
+    when(entitiesApi.entityQuery(
+            namespace,
+            name,
+            tableName,
+            BigDecimal.valueOf(3),
+            BigDecimal.valueOf(2),
+            null,
+            null,
+            null,
+            null,
+            List.of("b"),
+            null,
+            null))
+        .thenReturn(
+            new EntityQueryResponse()
+                .results(List.of(new Entity().name("idValue4").attributes(Map.of("b", 4)))));
+    var previewResponse =
+        new DatasetPreviewTable()
+            .columns(List.of(new ColumnModel().name("b")))
+            .rows(List.of(Map.of("b", 3), Map.of("b", 4)));
+    assertThat(
+        rawlsService.previewTable(id, tableName, 3, 2, List.of("b", "unknown")),
+        is(previewResponse));
   }
 
   @Test
@@ -211,7 +298,7 @@ class RawlsServiceTest {
     String tableName = "table";
     WorkspaceResponse response =
         new WorkspaceResponse().workspace(new WorkspaceDetails().name(name).namespace(namespace));
-    when(workspacesApi.getWorkspaceById(id, List.of())).thenReturn(response);
+    when(workspacesApi.getWorkspaceById(id, RawlsService.WORKSPACE_NAME)).thenReturn(response);
 
     var emptyTable = "empty";
     EntityTypeMetadata entityType = new EntityTypeMetadata().count(10);
@@ -219,7 +306,8 @@ class RawlsServiceTest {
     when(entitiesApi.entityTypeMetadata(namespace, name, true, null))
         .thenReturn(entityTypeResponse);
 
-    assertThrows(NotFoundException.class, () -> rawlsService.previewTable(id, "unknown", 10));
+    assertThrows(
+        NotFoundException.class, () -> rawlsService.previewTable(id, "unknown", 0, 10, null));
   }
 
   @Test
@@ -233,7 +321,7 @@ class RawlsServiceTest {
     String tableName = "table";
     WorkspaceResponse response =
         new WorkspaceResponse().workspace(new WorkspaceDetails().name(name).namespace(namespace));
-    when(workspacesApi.getWorkspaceById(id, List.of())).thenReturn(response);
+    when(workspacesApi.getWorkspaceById(id, RawlsService.WORKSPACE_NAME)).thenReturn(response);
 
     var emptyTable = "empty";
     EntityTypeMetadata entityType = new EntityTypeMetadata().count(10);
@@ -245,7 +333,7 @@ class RawlsServiceTest {
             namespace,
             name,
             tableName,
-            null,
+            BigDecimal.ONE,
             BigDecimal.valueOf(10),
             null,
             null,
@@ -256,7 +344,7 @@ class RawlsServiceTest {
             null))
         .thenThrow(new ApiException());
 
-    assertThrows(RawlsException.class, () -> rawlsService.previewTable(id, tableName, 10));
+    assertThrows(RawlsException.class, () -> rawlsService.previewTable(id, tableName, 0, 10, null));
   }
 
   @Test
@@ -268,7 +356,7 @@ class RawlsServiceTest {
     String namespace = "namespace";
     WorkspaceResponse response =
         new WorkspaceResponse().workspace(new WorkspaceDetails().name(name).namespace(namespace));
-    when(workspacesApi.getWorkspaceById(id, List.of())).thenReturn(response);
+    when(workspacesApi.getWorkspaceById(id, RawlsService.WORKSPACE_NAME)).thenReturn(response);
 
     var tableName = "sample";
     var emptyTable = "empty";
@@ -289,6 +377,28 @@ class RawlsServiceTest {
             new TableMetadata().name(tableName).hasData(true)));
   }
 
+  @Test
+  void onlyCallsThatReachRawlsAreRecorded() throws Exception {
+    mockWorkspaces();
+    mockEntities();
+    String id = "abc";
+    String name = "name";
+    String namespace = "namespace";
+    WorkspaceResponse response =
+        new WorkspaceResponse().workspace(new WorkspaceDetails().name(name).namespace(namespace));
+    when(workspacesApi.getWorkspaceById(id, RawlsService.WORKSPACE_NAME)).thenReturn(response);
+    when(entitiesApi.entityTypeMetadata(namespace, name, true, null)).thenReturn(Map.of());
+    rawlsService.getPreviewTables(id);
+    rawlsService.getPreviewTables(id);
+    // The workspace's name is cached after the first call.
+    assertThat(recordedCalls("getWorkspaceById"), is(1L));
+    assertThat(recordedCalls("entityTypeMetadata"), is(2L));
+  }
+
+  private long recordedCalls(String method) {
+    return meterRegistry.get(UpstreamMetrics.REQUESTS_METRIC).tag("method", method).timer().count();
+  }
+
   @Test
   void getPreviewTablesException() throws Exception {
     mockWorkspaces();
@@ -298,11 +408,31 @@ class RawlsServiceTest {
     String namespace = "namespace";
     WorkspaceResponse response =
         new WorkspaceResponse().workspace(new WorkspaceDetails().name(name).namespace(namespace));
-    when(workspacesApi.getWorkspaceById(id, List.of())).thenReturn(response);
+    when(workspacesApi.getWorkspaceById(id, RawlsService.WORKSPACE_NAME)).thenReturn(response);
     when(entitiesApi.entityTypeMetadata(namespace, name, true, null)).thenThrow(new ApiException());
     assertThrows(RawlsException.class, () -> rawlsService.getPreviewTables(id));
   }
 
+  @ParameterizedTest
+  @EnumSource(value = HttpStatus.class, names = {"NOT_FOUND", "FORBIDDEN"})
+  void workspaceNameIsForgottenWhenUnavailable(HttpStatus status) throws Exception {
+    mockWorkspaces();
+    mockEntities();
+    String id = "abc";
+    String name = "name";
+    String namespace = "namespace";
+    WorkspaceResponse response =
+        new WorkspaceResponse().workspace(new WorkspaceDetails().name(name).namespace(namespace));
+    when(workspacesApi.getWorkspaceById(id, RawlsService.WORKSPACE_NAME)).thenReturn(response);
+    when(entitiesApi.entityTypeMetadata(namespace, name, true, null))
+        .thenThrow(new ApiException(status.value(), status.getReasonPhrase()))
+        .thenReturn(Map.of());
+    assertThrows(RawlsException.class, () -> rawlsService.getPreviewTables(id));
+    assertThat(rawlsService.getPreviewTables(id), is(List.of()));
+    // The name is looked up again after Rawls couldn't return the workspace.
+    verify(workspacesApi, times(2)).getWorkspaceById(id, RawlsService.WORKSPACE_NAME);
+  }
+
   @Test
   void getWorkspaceName() {
     String namespace = "hello";
@@ -322,13 +452,13 @@ class RawlsServiceTest {
     String workspaceIdDest = "workspaceDest";
 
     var workspaceResponseSource = mock(WorkspaceResponse.class);
-    when(workspacesApi.getWorkspaceById(workspaceIdSource, List.of()))
+    when(workspacesApi.getWorkspaceById(workspaceIdSource, RawlsService.WORKSPACE_NAME))
         .thenReturn(workspaceResponseSource);
     when(workspaceResponseSource.getWorkspace())
         .thenReturn(new WorkspaceDetails().namespace("namespaceSource").name("nameSource"));
 
     var workspaceResponseDest = mock(WorkspaceResponse.class);
-    when(workspacesApi.getWorkspaceById(workspaceIdDest, List.of()))
+    when(workspacesApi.getWorkspaceById(workspaceIdDest, RawlsService.WORKSPACE_NAME))
         .thenReturn(workspaceResponseDest);
     when(workspaceResponseDest.getWorkspace())
         .thenReturn(new WorkspaceDetails().namespace("namespaceDest").name("nameDest"));
@@ -346,10 +476,39 @@ class RawlsServiceTest {
 
     String workspaceIdSource = "workspaceSource";
     String workspaceIdDest = "workspaceDest";
-    when(workspacesApi.getWorkspaceById(workspaceIdSource, List.of()))
+    when(workspacesApi.getWorkspaceById(workspaceIdSource, RawlsService.WORKSPACE_NAME))
         .thenThrow(new ApiException());
     assertThrows(
         RawlsException.class,
         () -> rawlsService.exportToWorkspace(workspaceIdSource, workspaceIdDest));
   }
+
+  @Test
+  void validateExportLooksUpBothWorkspacesForEachUser() throws Exception {
+    mockWorkspaces();
+    String workspaceIdSource = "workspaceSource";
+    String workspaceIdDest = "workspaceDest";
+    when(workspacesApi.getWorkspaceById(any(), any()))
+        .thenReturn(
+            new WorkspaceResponse()
+                .workspace(new WorkspaceDetails().namespace("namespace").name("name")));
+    rawlsService.validateExport(workspaceIdSource, workspaceIdDest);
+    // The names aren't taken from the shared cache, so each export checks the user's access.
+    rawlsService.validateExport(workspaceIdSource, workspaceIdDest);
+    verify(workspacesApi, times(2))
+        .getWorkspaceById(workspaceIdSource, RawlsService.WORKSPACE_NAME);
+    verify(workspacesApi, times(2)).getWorkspaceById(workspaceIdDest, RawlsService.WORKSPACE_NAME);
+  }
+
+  @Test
+  void validateExportException() throws Exception {
+    mockWorkspaces();
+    String workspaceIdSource = "workspaceSource";
+    String workspaceIdDest = "workspaceDest";
+    when(workspacesApi.getWorkspaceById(workspaceIdSource, RawlsService.WORKSPACE_NAME))
+        .thenThrow(new ApiException(HttpStatus.FORBIDDEN.value(), "forbidden"));
+    assertThrows(
+        RawlsException.class,
+        () -> rawlsService.validateExport(workspaceIdSource, workspaceIdDest));
+  }
 }
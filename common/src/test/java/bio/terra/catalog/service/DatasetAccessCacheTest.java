@@ -0,0 +1,152 @@
+package bio.terra.catalog.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.catalog.common.StorageSystem;
+import bio.terra.catalog.common.StorageSystemInformation;
+import bio.terra.catalog.config.DatasetCacheConfiguration;
+import bio.terra.catalog.service.dataset.DatasetAccessLevel;
+import bio.terra.common.exception.NotFoundException;
+import bio.terra.common.iam.BearerToken;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class DatasetAccessCacheTest {
+  private static final Map<String, StorageSystemInformation> DATASETS =
+      Map.of("id", new StorageSystemInformation(DatasetAccessLevel.OWNER));
+  private static final Map<String, StorageSystemInformation> UPDATED_DATASETS =
+      Map.of("id", new StorageSystemInformation(DatasetAccessLevel.READER));
+
+  @Mock private BearerToken bearerToken;
+  @Mock private Supplier<Map<String, StorageSystemInformation>> loader;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final FakeTicker ticker = new FakeTicker();
+
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advanceSeconds(long seconds) {
+      nanos += TimeUnit.SECONDS.toNanos(seconds);
+    }
+  }
+
+  private DatasetAccessCache createCache(boolean enabled, int refreshAfterSeconds) {
+    return new DatasetAccessCache(
+        new DatasetCacheConfiguration(enabled, 60, 100, refreshAfterSeconds, 1),
+        bearerToken,
+        meterRegistry,
+        ticker,
+        MoreExecutors.newDirectExecutorService());
+  }
+
+  private double cacheGets(String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tag("cache", DatasetAccessCache.CACHE_NAME)
+        .tag("result", result)
+        .functionCounter()
+        .count();
+  }
+
+  @Test
+  void repeatedCallsUseCache() {
+    when(loader.get()).thenReturn(DATASETS);
+    when(bearerToken.getToken()).thenReturn("token");
+    var cache = createCache(true, 0);
+    assertThat(cache.get(StorageSystem.TERRA_WORKSPACE, loader), is(DATASETS));
+    assertThat(cache.get(StorageSystem.TERRA_WORKSPACE, loader), is(DATASETS));
+    verify(loader).get();
+    assertThat(cacheGets("hit"), is(1.0));
+    assertThat(cacheGets("miss"), is(1.0));
+  }
+
+  @Test
+  void cacheIsPerUserAndSystem() {
+    when(loader.get()).thenReturn(DATASETS);
+    when(bearerToken.getToken()).thenReturn("token1", "token1", "token2");
+    var cache = createCache(true, 0);
+    cache.get(StorageSystem.TERRA_WORKSPACE, loader);
+    cache.get(StorageSystem.TERRA_DATA_REPO, loader);
+    cache.get(StorageSystem.TERRA_WORKSPACE, loader);
+    verify(loader, times(3)).get();
+  }
+
+  @Test
+  void disabledCacheAlwaysLoads() {
+    when(loader.get()).thenReturn(DATASETS);
+    var cache = createCache(false, 0);
+    cache.get(StorageSystem.TERRA_WORKSPACE, loader);
+    cache.get(StorageSystem.TERRA_WORKSPACE, loader);
+    verify(loader, times(2)).get();
+  }
+
+  @Test
+  void failedLoadIsRethrownAndNotCached() {
+    when(loader.get()).thenThrow(new NotFoundException("not found")).thenReturn(DATASETS);
+    when(bearerToken.getToken()).thenReturn("token");
+    var cache = createCache(true, 0);
+    assertThrows(NotFoundException.class, () -> cache.get(StorageSystem.TERRA_WORKSPACE, loader));
+    assertThat(cache.get(StorageSystem.TERRA_WORKSPACE, loader), is(DATASETS));
+  }
+
+  @Test
+  void expiredEntriesAreReloaded() {
+    when(loader.get()).thenReturn(DATASETS, UPDATED_DATASETS);
+    when(bearerToken.getToken()).thenReturn("token");
+    var cache = createCache(true, 0);
+    cache.get(StorageSystem.TERRA_WORKSPACE, loader);
+    ticker.advanceSeconds(60);
+    assertThat(cache.get(StorageSystem.TERRA_WORKSPACE, loader), is(UPDATED_DATASETS));
+  }
+
+  @Test
+  void staleEntriesAreServedWhileRefreshing() {
+    when(loader.get()).thenReturn(DATASETS, UPDATED_DATASETS);
+    when(bearerToken.getToken()).thenReturn("token");
+    var cache = createCache(true, 10);
+    cache.get(StorageSystem.TERRA_WORKSPACE, loader);
+    ticker.advanceSeconds(10);
+    // The stale entry is returned, and the refresh replaces it for the next call.
+    assertThat(cache.get(StorageSystem.TERRA_WORKSPACE, loader), is(DATASETS));
+    assertThat(cache.get(StorageSystem.TERRA_WORKSPACE, loader), is(UPDATED_DATASETS));
+    verify(loader, times(2)).get();
+  }
+
+  @Test
+  void failedRefreshKeepsStaleEntry() {
+    when(loader.get()).thenReturn(DATASETS).thenThrow(new RuntimeException("refresh failed"));
+    when(bearerToken.getToken()).thenReturn("token");
+    var cache = createCache(true, 10);
+    cache.get(StorageSystem.TERRA_WORKSPACE, loader);
+    ticker.advanceSeconds(10);
+    assertThat(cache.get(StorageSystem.TERRA_WORKSPACE, loader), is(DATASETS));
+    assertThat(
+        meterRegistry
+            .get(DatasetAccessCache.CACHE_NAME + ".refresh")
+            .tag("result", "failure")
+            .counter()
+            .count(),
+        is(1.0));
+  }
+}
@@ -1,15 +1,27 @@
 package bio.terra.catalog.service;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import bio.terra.catalog.common.FanOutExecutor;
 import bio.terra.catalog.common.StorageSystem;
 import bio.terra.catalog.common.StorageSystemInformation;
+import bio.terra.catalog.config.DatasetCacheConfiguration;
+import bio.terra.catalog.config.DatasetListConfiguration;
+import bio.terra.catalog.config.FanOutConfiguration;
 import bio.terra.catalog.datarepo.DatarepoException;
 import bio.terra.catalog.datarepo.DatarepoService;
 import bio.terra.catalog.iam.SamAction;
@@ -19,19 +31,29 @@ import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.DatasetPreviewTablesResponse;
 import bio.terra.catalog.model.TableMetadata;
 import bio.terra.catalog.rawls.RawlsService;
+import bio.terra.catalog.service.dataset.CatalogIndex;
 import bio.terra.catalog.service.dataset.Dataset;
 import bio.terra.catalog.service.dataset.DatasetAccessLevel;
-import bio.terra.catalog.service.dataset.DatasetDao;
+import bio.terra.catalog.service.dataset.DatasetCursor;
 import bio.terra.catalog.service.dataset.DatasetId;
+import bio.terra.catalog.service.dataset.RawDataset;
+import bio.terra.catalog.service.export.ExportJob;
+import bio.terra.catalog.service.export.ExportJobStatus;
+import bio.terra.catalog.service.export.exception.ExportJobNotFoundException;
+import bio.terra.common.exception.BadRequestException;
 import bio.terra.common.exception.ForbiddenException;
+import bio.terra.common.iam.BearerToken;
 import bio.terra.datarepo.client.ApiException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -51,10 +73,14 @@ class DatasetServiceTest {
 
   @Mock private ExternalSystemService externalSystemService;
 
-  @Mock private DatasetDao datasetDao;
+  @Mock private CatalogIndex catalogIndex;
 
   @Mock private SamService samService;
 
+  @Mock private BearerToken bearerToken;
+
+  @Mock private ExportJobService exportJobService;
+
   private static final ObjectMapper objectMapper = new ObjectMapper();
 
   private static final DatasetId datasetId = new DatasetId(UUID.randomUUID());
@@ -93,18 +119,32 @@ class DatasetServiceTest {
 
   @BeforeEach
   public void beforeEach() {
-    datasetService =
-        new DatasetService(
-            datarepoService,
-            rawlsService,
-            externalSystemService,
-            samService,
-            jsonValidationService,
-            datasetDao);
+    datasetService = createService(false);
+  }
+
+  private DatasetService createService(boolean streaming) {
+    return createService(new DatasetListConfiguration(streaming, false, null));
+  }
+
+  private DatasetService createService(DatasetListConfiguration listConfiguration) {
+    return new DatasetService(
+        datarepoService,
+        rawlsService,
+        externalSystemService,
+        samService,
+        jsonValidationService,
+        catalogIndex,
+        new DatasetAccessCache(
+            new DatasetCacheConfiguration(false, 0, 0, 0, 0),
+            bearerToken,
+            new SimpleMeterRegistry()),
+        listConfiguration,
+        new FanOutExecutor(new FanOutConfiguration(2, 10, 10), new SimpleMeterRegistry()),
+        exportJobService);
   }
 
   private void mockDataset() {
-    when(datasetDao.retrieve(datasetId)).thenReturn(dataset);
+    when(catalogIndex.retrieve(datasetId)).thenReturn(dataset);
   }
 
   @Test
@@ -113,11 +153,12 @@ class DatasetServiceTest {
     var idToRole = Map.of(SOURCE_ID, new StorageSystemInformation(DatasetAccessLevel.OWNER));
     when(datarepoService.getDatasets()).thenReturn(idToRole);
     when(rawlsService.getDatasets()).thenReturn(workspaces);
-    when(datasetDao.find(
+    when(catalogIndex.find(
             Map.of(
                 StorageSystem.TERRA_WORKSPACE, workspaces.keySet(),
                 StorageSystem.TERRA_DATA_REPO, idToRole.keySet(),
-                StorageSystem.EXTERNAL, Set.of())))
+                StorageSystem.EXTERNAL, Set.of()),
+            null))
         .thenReturn(List.of(workspaceDataset, tdrDataset));
     ObjectNode workspaceJson = (ObjectNode) datasetService.listDatasets().getResult().get(0);
     ObjectNode tdrJson = (ObjectNode) datasetService.listDatasets().getResult().get(1);
@@ -130,43 +171,95 @@ class DatasetServiceTest {
     assertThat(tdrJson.get("accessLevel").asText(), is(String.valueOf(DatasetAccessLevel.OWNER)));
   }
 
+  @Test
+  void listDatasetsPages() {
+    var first =
+        new Dataset(
+            tdrDataset.id(),
+            SOURCE_ID,
+            StorageSystem.TERRA_DATA_REPO,
+            METADATA,
+            Instant.parse("2022-01-01T00:00:00Z"));
+    var second =
+        new Dataset(
+            workspaceDataset.id(),
+            WORKSPACE_ID,
+            StorageSystem.TERRA_WORKSPACE,
+            METADATA,
+            Instant.parse("2022-01-02T00:00:00Z"));
+    when(samService.hasGlobalAction(SamAction.READ_ANY_METADATA)).thenReturn(true);
+    when(catalogIndex.listAllDatasets(DatasetCursor.START, 2, null))
+        .thenReturn(List.of(first, second));
+    var firstPage = datasetService.listDatasets(1, null, null);
+    assertThat(firstPage.getResult(), hasSize(1));
+    var firstJson = (ObjectNode) firstPage.getResult().get(0);
+    assertThat(firstJson.get("id").asText(), is(first.id().toValue()));
+    assertThat(firstPage.getNext(), is(DatasetCursor.after(first).encode()));
+
+    when(catalogIndex.listAllDatasets(DatasetCursor.after(first), 2, null))
+        .thenReturn(List.of(second));
+    var secondPage = datasetService.listDatasets(1, firstPage.getNext(), null);
+    assertThat(secondPage.getResult(), hasSize(1));
+    assertThat(secondPage.getNext(), nullValue());
+  }
+
+  @Test
+  void listDatasetsInvalidPage() {
+    assertThrows(BadRequestException.class, () -> datasetService.listDatasets(0, null, null));
+    assertThrows(BadRequestException.class, () -> datasetService.listDatasets(1, "invalid", null));
+  }
+
   @Test
   void getMetadata() throws Exception {
     when(externalSystemService.getRole(SOURCE_ID)).thenReturn(DatasetAccessLevel.DISCOVERER);
     when(externalSystemService.getDataset(SOURCE_ID))
         .thenReturn(new StorageSystemInformation(DatasetAccessLevel.DISCOVERER));
-    mockDataset();
+    when(catalogIndex.retrieve(datasetId, null)).thenReturn(dataset);
     JSONAssert.assertEquals(
-        metadataWithId(dataset.id()), datasetService.getMetadata(dataset.id()), true);
+        metadataWithId(dataset.id()), datasetService.getMetadata(dataset.id(), null), true);
   }
 
   @Test
   void getMetadataInvalidUser() {
-    mockDataset();
+    when(catalogIndex.retrieve(datasetId, null)).thenReturn(dataset);
     when(externalSystemService.getRole(dataset.storageSourceId()))
         .thenReturn(DatasetAccessLevel.NO_ACCESS);
-    assertThrows(ForbiddenException.class, () -> datasetService.getMetadata(datasetId));
+    assertThrows(ForbiddenException.class, () -> datasetService.getMetadata(datasetId, null));
   }
 
   @Test
   void getMetadataAdminUserNoAccess() throws Exception {
-    mockDataset();
+    when(catalogIndex.retrieve(datasetId, null)).thenReturn(dataset);
     when(samService.hasGlobalAction(SamAction.READ_ANY_METADATA)).thenReturn(true);
     when(externalSystemService.getDataset(SOURCE_ID))
         .thenThrow(new DatarepoException(new ApiException()));
     JSONAssert.assertEquals(
         metadataWithIdAndAccess(dataset.id(), DatasetAccessLevel.READER),
-        datasetService.getMetadata(dataset.id()),
+        datasetService.getMetadata(dataset.id(), null),
         true);
   }
 
+  @Test
+  void getMetadataFields() throws Exception {
+    var projected = dataset.withMetadata(objectMapper.createObjectNode().put("name", "name"));
+    when(catalogIndex.retrieve(
+            datasetId, Set.of("name", DatasetService.REQUEST_ACCESS_URL_PROPERTY_NAME)))
+        .thenReturn(projected);
+    when(externalSystemService.getRole(SOURCE_ID)).thenReturn(DatasetAccessLevel.DISCOVERER);
+    when(externalSystemService.getDataset(SOURCE_ID))
+        .thenReturn(new StorageSystemInformation(DatasetAccessLevel.DISCOVERER));
+    JSONAssert.assertEquals(
+        metadataWithId(dataset.id()), datasetService.getMetadata(datasetId, List.of("name")), true);
+  }
+
   @Test
   void listDatasetsWithPhsId() {
     String phsId = "1234";
     var idToRole = Map.of(SOURCE_ID, new StorageSystemInformation(DatasetAccessLevel.OWNER, phsId));
     when(datarepoService.getDatasets()).thenReturn(idToRole);
-    when(datasetDao.find(
-            argThat(map -> map.get(StorageSystem.TERRA_DATA_REPO).equals(idToRole.keySet()))))
+    when(catalogIndex.find(
+            argThat(map -> map.get(StorageSystem.TERRA_DATA_REPO).equals(idToRole.keySet())),
+            isNull()))
         .thenReturn(List.of(tdrDataset));
 
     ObjectNode tdrJson = (ObjectNode) datasetService.listDatasets().getResult().get(0);
@@ -182,8 +275,9 @@ class DatasetServiceTest {
     var url = "url";
     var metadata =
         objectMapper.createObjectNode().put(DatasetService.REQUEST_ACCESS_URL_PROPERTY_NAME, url);
-    when(datasetDao.find(
-            argThat(map -> map.get(StorageSystem.TERRA_DATA_REPO).equals(idToRole.keySet()))))
+    when(catalogIndex.find(
+            argThat(map -> map.get(StorageSystem.TERRA_DATA_REPO).equals(idToRole.keySet())),
+            isNull()))
         .thenReturn(List.of(tdrDataset.withMetadata(metadata)));
 
     ObjectNode tdrJson = (ObjectNode) datasetService.listDatasets().getResult().get(0);
@@ -198,7 +292,8 @@ class DatasetServiceTest {
     when(datarepoService.getDatasets()).thenReturn(datasets);
     when(rawlsService.getDatasets()).thenReturn(workspaces);
     when(samService.hasGlobalAction(SamAction.READ_ANY_METADATA)).thenReturn(true);
-    when(datasetDao.listAllDatasets()).thenReturn(List.of(workspaceDataset, tdrDataset));
+    when(catalogIndex.listAllDatasets((Set<String>) null))
+        .thenReturn(List.of(workspaceDataset, tdrDataset));
     ObjectNode tdrJson = (ObjectNode) datasetService.listDatasets().getResult().get(1);
     ObjectNode workspaceJson = (ObjectNode) datasetService.listDatasets().getResult().get(0);
     assertThat(tdrJson.get("name").asText(), is("name"));
@@ -210,6 +305,113 @@ class DatasetServiceTest {
         workspaceJson.get("accessLevel").asText(), is(String.valueOf(DatasetAccessLevel.READER)));
   }
 
+  @Test
+  void listDatasetsWithDegradedSystem() {
+    var idToRole = Map.of(SOURCE_ID, new StorageSystemInformation(DatasetAccessLevel.OWNER));
+    when(datarepoService.getDatasets()).thenReturn(idToRole);
+    when(rawlsService.getDatasets()).thenThrow(new RuntimeException("rawls is down"));
+    // The workspace datasets can't be found, so they're omitted.
+    when(catalogIndex.find(
+            Map.of(
+                StorageSystem.TERRA_DATA_REPO, idToRole.keySet(),
+                StorageSystem.EXTERNAL, Set.of()),
+            null))
+        .thenReturn(List.of(tdrDataset));
+    var service =
+        createService(
+            new DatasetListConfiguration(false, true, Map.of(StorageSystem.TERRA_WORKSPACE, 1)));
+    var response = service.listDatasets();
+    assertThat(response.getResult(), hasSize(1));
+    assertThat(
+        response.getDegradedSystems(), is(List.of(bio.terra.catalog.model.StorageSystem.WKS)));
+  }
+
+  @Test
+  void listDatasetsWithDegradedSystemUsingAdminPermissions() {
+    var idToRole = Map.of(SOURCE_ID, new StorageSystemInformation(DatasetAccessLevel.OWNER));
+    when(datarepoService.getDatasets()).thenReturn(idToRole);
+    when(rawlsService.getDatasets()).thenThrow(new RuntimeException("rawls is down"));
+    when(samService.hasGlobalAction(SamAction.READ_ANY_METADATA)).thenReturn(true);
+    when(catalogIndex.listAllDatasets((Set<String>) null))
+        .thenReturn(List.of(workspaceDataset, tdrDataset));
+    var service = createService(new DatasetListConfiguration(false, true, null));
+    var response = service.listDatasets();
+    // Admins see the workspace datasets with the default access level.
+    ObjectNode workspaceJson = (ObjectNode) response.getResult().get(0);
+    assertThat(
+        workspaceJson.get("accessLevel").asText(), is(String.valueOf(DatasetAccessLevel.READER)));
+    assertThat(
+        response.getDegradedSystems(), is(List.of(bio.terra.catalog.model.StorageSystem.WKS)));
+  }
+
+  @Test
+  void listDatasetsStreamedFromIndex() throws Exception {
+    String phsId = "1234";
+    var idToRole = Map.of(SOURCE_ID, new StorageSystemInformation(DatasetAccessLevel.OWNER, phsId));
+    when(datarepoService.getDatasets()).thenReturn(idToRole);
+    when(catalogIndex.isLoaded()).thenReturn(true);
+    when(catalogIndex.find(
+            argThat(map -> map.get(StorageSystem.TERRA_DATA_REPO).equals(idToRole.keySet()))))
+        .thenReturn(List.of(tdrDataset));
+
+    var response = createService(true).listDatasets();
+    JSONAssert.assertEquals(
+        """
+        {"result":[
+          {"name":"name","phsId":"%s","requestAccessURL":"%s","accessLevel":"%s","id":"%s"}]}"""
+            .formatted(
+                phsId,
+                DatasetJsonWriter.requestAccessUrl(phsId),
+                DatasetAccessLevel.OWNER,
+                tdrDataset.id().toValue()),
+        objectMapper.writeValueAsString(response),
+        true);
+  }
+
+  @Test
+  void listDatasetsStreamedFromDatabase() throws Exception {
+    var workspaces = Map.of(WORKSPACE_ID, new StorageSystemInformation(DatasetAccessLevel.OWNER));
+    when(rawlsService.getDatasets()).thenReturn(workspaces);
+    when(samService.hasGlobalAction(SamAction.READ_ANY_METADATA)).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              Consumer<RawDataset> consumer = invocation.getArgument(1);
+              consumer.accept(
+                  new RawDataset(
+                      workspaceDataset.id(),
+                      StorageSystem.TERRA_WORKSPACE,
+                      WORKSPACE_ID,
+                      "{\"name\": \"name\"}",
+                      "\"phs000\"",
+                      false));
+              consumer.accept(
+                  new RawDataset(
+                      tdrDataset.id(),
+                      StorageSystem.TERRA_DATA_REPO,
+                      SOURCE_ID,
+                      "{}",
+                      null,
+                      false));
+              return null;
+            })
+        .when(catalogIndex)
+        .streamDatasets(isNull(), any());
+
+    var response = createService(true).listDatasets();
+    JSONAssert.assertEquals(
+        """
+        {"result":[
+          {"name":"name","phsId":"phs000","accessLevel":"%s","id":"%s"},
+          {"accessLevel":"%s","id":"%s"}]}"""
+            .formatted(
+                DatasetAccessLevel.OWNER,
+                workspaceDataset.id().toValue(),
+                DatasetAccessLevel.READER,
+                tdrDataset.id().toValue()),
+        objectMapper.writeValueAsString(response),
+        true);
+  }
+
   @Test()
   void testDeleteMetadataWithInvalidUser() {
     mockDataset();
@@ -223,7 +425,7 @@ class DatasetServiceTest {
     mockDataset();
     when(externalSystemService.getRole(SOURCE_ID)).thenReturn(DatasetAccessLevel.OWNER);
     datasetService.deleteMetadata(datasetId);
-    verify(datasetDao).delete(dataset);
+    verify(catalogIndex).delete(dataset);
   }
 
   @Test()
@@ -248,7 +450,7 @@ class DatasetServiceTest {
     when(samService.hasGlobalAction(SamAction.UPDATE_ANY_METADATA)).thenReturn(true);
     datasetService.updateMetadata(datasetId, METADATA);
     verify(jsonValidationService).validateMetadata(dataset.metadata());
-    verify(datasetDao).update(dataset.withMetadata(METADATA));
+    verify(catalogIndex).update(dataset.withMetadata(METADATA));
   }
 
   @Test
@@ -262,7 +464,7 @@ class DatasetServiceTest {
   @Test
   void testCreateDatasetAdmin() throws JsonProcessingException {
     when(samService.hasGlobalAction(SamAction.CREATE_METADATA)).thenReturn(true);
-    when(datasetDao.upsert(new Dataset(SOURCE_ID, dataset.storageSystem(), METADATA)))
+    when(catalogIndex.upsert(new Dataset(SOURCE_ID, dataset.storageSystem(), METADATA)))
         .thenReturn(dataset);
     DatasetId id = datasetService.upsertDataset(dataset.storageSystem(), SOURCE_ID, METADATA);
     verify(jsonValidationService).validateMetadata(dataset.metadata());
@@ -287,17 +489,91 @@ class DatasetServiceTest {
     var previewTable = new DatasetPreviewTable().columns(List.of(new ColumnModel().name("test")));
 
     mockDataset();
-    when(externalSystemService.previewTable(dataset.storageSourceId(), tableName, 30))
+    when(externalSystemService.previewTable(dataset.storageSourceId(), tableName, 0, 30, null))
         .thenReturn(previewTable);
     assertThat(datasetService.getDatasetPreview(datasetId, tableName), is(previewTable));
   }
 
+  @Test
+  void getDatasetPreviewTablePage() {
+    var tableName = "table";
+    var columns = List.of("a");
+    var previewTable = new DatasetPreviewTable().columns(List.of(new ColumnModel().name("a")));
+
+    mockDataset();
+    when(externalSystemService.previewTable(dataset.storageSourceId(), tableName, 60, 30, columns))
+        .thenReturn(previewTable);
+    assertThat(
+        datasetService.getDatasetPreview(datasetId, tableName, 60, 30, columns), is(previewTable));
+  }
+
+  @Test
+  void getDatasetPreviewTableInvalidPage() {
+    assertThrows(
+        BadRequestException.class,
+        () -> datasetService.getDatasetPreview(datasetId, "table", -1, null, null));
+    assertThrows(
+        BadRequestException.class,
+        () -> datasetService.getDatasetPreview(datasetId, "table", null, 1001, null));
+  }
+
+  private static ExportJob exportJob(DatasetId datasetId, UUID workspaceId) {
+    var now = Instant.now();
+    return new ExportJob(
+        UUID.randomUUID(),
+        datasetId,
+        workspaceId,
+        "requester",
+        ExportJobStatus.QUEUED,
+        null,
+        now,
+        now);
+  }
+
   @Test
   void exportDataset() {
     UUID workspaceId = UUID.randomUUID();
+    var job = exportJob(datasetId, workspaceId);
     mockDataset();
-    datasetService.exportDataset(datasetId, workspaceId);
+    // Run the export as soon as it's submitted.
+    doAnswer(
+            invocation -> {
+              invocation.<Runnable>getArgument(2).run();
+              return job;
+            })
+        .when(exportJobService)
+        .submit(eq(datasetId), eq(workspaceId), any());
+    assertThat(datasetService.exportDataset(datasetId, workspaceId), is(job.toModel()));
+    verify(externalSystemService).validateExport(dataset.storageSourceId(), workspaceId.toString());
     verify(externalSystemService)
         .exportToWorkspace(dataset.storageSourceId(), workspaceId.toString());
   }
+
+  @Test
+  void exportDatasetRejectedBeforeSubmitting() {
+    UUID workspaceId = UUID.randomUUID();
+    mockDataset();
+    doThrow(new BadRequestException("export not supported"))
+        .when(externalSystemService)
+        .validateExport(dataset.storageSourceId(), workspaceId.toString());
+    assertThrows(
+        BadRequestException.class, () -> datasetService.exportDataset(datasetId, workspaceId));
+    verify(exportJobService, never()).submit(any(), any(), any());
+  }
+
+  @Test
+  void getExportJob() {
+    var job = exportJob(datasetId, UUID.randomUUID());
+    when(exportJobService.retrieve(job.id())).thenReturn(job);
+    assertThat(datasetService.getExportJob(datasetId, job.id()), is(job.toModel()));
+  }
+
+  @Test
+  void getExportJobOfOtherDataset() {
+    var job = exportJob(new DatasetId(UUID.randomUUID()), UUID.randomUUID());
+    when(exportJobService.retrieve(job.id())).thenReturn(job);
+    UUID jobId = job.id();
+    assertThrows(
+        ExportJobNotFoundException.class, () -> datasetService.getExportJob(datasetId, jobId));
+  }
 }
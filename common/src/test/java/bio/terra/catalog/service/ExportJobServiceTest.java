@@ -0,0 +1,160 @@
+package bio.terra.catalog.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.catalog.config.ExportJobConfiguration;
+import bio.terra.catalog.iam.SamService;
+import bio.terra.catalog.service.dataset.DatasetId;
+import bio.terra.catalog.service.export.ExportJob;
+import bio.terra.catalog.service.export.ExportJobDao;
+import bio.terra.catalog.service.export.ExportJobStatus;
+import bio.terra.catalog.service.export.exception.ExportJobNotFoundException;
+import bio.terra.catalog.service.export.exception.ExportJobRejectedException;
+import bio.terra.common.exception.BadRequestException;
+import bio.terra.common.iam.BearerToken;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceTest {
+  private static final DatasetId DATASET_ID = new DatasetId(UUID.randomUUID());
+  private static final UUID WORKSPACE_ID = UUID.randomUUID();
+  private static final String REQUESTER = "requester";
+
+  @Mock private ExportJobDao exportJobDao;
+  @Mock private BearerToken bearerToken;
+  @Mock private SamService samService;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private ExportJobService createService(ExecutorService executor) {
+    return new ExportJobService(
+        exportJobDao,
+        new ExportJobConfiguration(1, 1, 1, 60),
+        bearerToken,
+        samService,
+        meterRegistry,
+        executor);
+  }
+
+  private ExportJob createJob() {
+    var now = Instant.now();
+    return new ExportJob(
+        UUID.randomUUID(),
+        DATASET_ID,
+        WORKSPACE_ID,
+        REQUESTER,
+        ExportJobStatus.QUEUED,
+        null,
+        now,
+        now);
+  }
+
+  private ExportJob mockCreate() {
+    var job = createJob();
+    when(samService.getUserSubjectId()).thenReturn(REQUESTER);
+    when(exportJobDao.create(DATASET_ID, WORKSPACE_ID, REQUESTER)).thenReturn(job);
+    return job;
+  }
+
+  @Test
+  void submitRunsExport() {
+    var job = mockCreate();
+    var export = mock(Runnable.class);
+    var service = createService(MoreExecutors.newDirectExecutorService());
+    assertThat(service.submit(DATASET_ID, WORKSPACE_ID, export), is(job));
+    var order = inOrder(exportJobDao, export);
+    order.verify(exportJobDao).updateStatus(job.id(), ExportJobStatus.RUNNING, null);
+    order.verify(export).run();
+    order.verify(exportJobDao).updateStatus(job.id(), ExportJobStatus.SUCCEEDED, null);
+  }
+
+  @Test
+  void failedExportIsRecorded() {
+    var job = mockCreate();
+    var service = createService(MoreExecutors.newDirectExecutorService());
+    service.submit(
+        DATASET_ID,
+        WORKSPACE_ID,
+        () -> {
+          throw new BadRequestException("export failed");
+        });
+    verify(exportJobDao).updateStatus(job.id(), ExportJobStatus.FAILED, "export failed");
+    assertThat(
+        meterRegistry
+            .get(ExportJobService.METRIC_NAME + ".completed")
+            .tag("result", "failure")
+            .counter()
+            .count(),
+        is(1.0));
+  }
+
+  @Test
+  void submitWhenQueueIsFull() {
+    var job = mockCreate();
+    var executor = mock(ExecutorService.class);
+    doThrow(new RejectedExecutionException()).when(executor).execute(any());
+    var service = createService(executor);
+    var export = mock(Runnable.class);
+    assertThrows(
+        ExportJobRejectedException.class, () -> service.submit(DATASET_ID, WORKSPACE_ID, export));
+    verify(exportJobDao)
+        .updateStatus(job.id(), ExportJobStatus.FAILED, ExportJobService.REJECTED_MESSAGE);
+    verify(export, never()).run();
+  }
+
+  @Test
+  void heartbeatUpdatesActiveJobsAndFailsStaleJobs() {
+    var job = mockCreate();
+    // The job stays queued, because the executor never runs it.
+    var service = createService(mock(ExecutorService.class));
+    service.submit(DATASET_ID, WORKSPACE_ID, mock(Runnable.class));
+    service.heartbeat();
+    verify(exportJobDao).touch(Set.of(job.id()));
+    verify(exportJobDao).failStale(any(), eq(ExportJobService.INTERRUPTED_MESSAGE));
+  }
+
+  @Test
+  void retrieveJob() {
+    var job = createJob();
+    when(exportJobDao.retrieve(job.id())).thenReturn(job);
+    when(samService.getUserSubjectId()).thenReturn(REQUESTER);
+    assertThat(createService(mock(ExecutorService.class)).retrieve(job.id()), is(job));
+  }
+
+  @Test
+  void retrieveAnotherUsersJob() {
+    var job = createJob();
+    when(exportJobDao.retrieve(job.id())).thenReturn(job);
+    when(samService.getUserSubjectId()).thenReturn("another user");
+    var service = createService(mock(ExecutorService.class));
+    UUID id = job.id();
+    assertThrows(ExportJobNotFoundException.class, () -> service.retrieve(id));
+  }
+
+  @Test
+  void heartbeatWithoutActiveJobs() {
+    createService(MoreExecutors.newDirectExecutorService()).heartbeat();
+    verify(exportJobDao, never()).touch(any());
+    verify(exportJobDao).failStale(any(), eq(ExportJobService.INTERRUPTED_MESSAGE));
+  }
+}
@@ -7,9 +7,9 @@ import static org.mockito.Mockito.when;
 
 import bio.terra.catalog.common.StorageSystem;
 import bio.terra.catalog.common.StorageSystemInformation;
+import bio.terra.catalog.service.dataset.CatalogIndex;
 import bio.terra.catalog.service.dataset.Dataset;
 import bio.terra.catalog.service.dataset.DatasetAccessLevel;
-import bio.terra.catalog.service.dataset.DatasetDao;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -19,7 +19,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
 class ExternalSystemServiceTest {
-  @Mock private DatasetDao mockDatasetDao;
+  @Mock private CatalogIndex mockCatalogIndex;
 
   private static final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -29,11 +29,11 @@ class ExternalSystemServiceTest {
     List<Dataset> resultDatasets =
         List.of(
             new Dataset(storageSourceId, StorageSystem.EXTERNAL, objectMapper.createObjectNode()));
-    when(mockDatasetDao.listAllDatasets(StorageSystem.EXTERNAL)).thenReturn(resultDatasets);
+    when(mockCatalogIndex.listAllDatasets(StorageSystem.EXTERNAL)).thenReturn(resultDatasets);
 
     var expectedStorageSystemInformation =
         new StorageSystemInformation(DatasetAccessLevel.DISCOVERER);
-    var externalSystemService = new ExternalSystemService(mockDatasetDao);
+    var externalSystemService = new ExternalSystemService(mockCatalogIndex);
     assertThat(
         externalSystemService.getDatasets(),
         hasEntry(is(storageSourceId), is(expectedStorageSystemInformation)));
@@ -41,7 +41,7 @@ class ExternalSystemServiceTest {
 
   @Test
   void getDataset() {
-    var externalSystemService = new ExternalSystemService(mockDatasetDao);
+    var externalSystemService = new ExternalSystemService(mockCatalogIndex);
     String storageSourceId = "source id";
     assertThat(
         externalSystemService.getDataset(storageSourceId),
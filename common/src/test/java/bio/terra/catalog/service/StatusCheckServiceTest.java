@@ -8,19 +8,24 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import bio.terra.catalog.common.FanOutExecutor;
+import bio.terra.catalog.config.FanOutConfiguration;
 import bio.terra.catalog.config.StatusCheckConfiguration;
 import bio.terra.catalog.model.SystemStatus;
 import bio.terra.catalog.model.SystemStatusSystems;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Map;
 import java.util.function.Supplier;
 import org.junit.jupiter.api.Test;
 
 class StatusCheckServiceTest {
+  private final FanOutExecutor fanOutExecutor =
+      new FanOutExecutor(new FanOutConfiguration(2, 10, 10), new SimpleMeterRegistry());
 
   @Test
   void getCurrentStatus() {
     var config = new StatusCheckConfiguration(true, 0, 0, 10);
-    StatusCheckService service = new StatusCheckService(config);
+    StatusCheckService service = new StatusCheckService(config, fanOutExecutor);
     var status = new SystemStatusSystems().ok(true);
     service.registerStatusCheck("test", () -> status);
     assertThat(service.getCurrentStatus(), is(new SystemStatus().ok(false)));
@@ -33,7 +38,7 @@ class StatusCheckServiceTest {
   @Test
   void getCurrentStatusException() {
     var config = new StatusCheckConfiguration(true, 0, 0, 10);
-    StatusCheckService service = new StatusCheckService(config);
+    StatusCheckService service = new StatusCheckService(config, fanOutExecutor);
     service.registerStatusCheck(
         "test",
         () -> {
@@ -50,7 +55,7 @@ class StatusCheckServiceTest {
   @Test
   void startStatusChecking() {
     var config = new StatusCheckConfiguration(true, 1, 0, 10);
-    StatusCheckService service = new StatusCheckService(config);
+    StatusCheckService service = new StatusCheckService(config, fanOutExecutor);
     var status = mock(Status.class);
     when(status.get()).thenReturn(new SystemStatusSystems().ok(true));
     service.registerStatusCheck("", status);
@@ -61,7 +66,7 @@ class StatusCheckServiceTest {
   @Test
   void getNonEnabledStatus() {
     var config = new StatusCheckConfiguration(false, 0, 0, 10);
-    StatusCheckService service = new StatusCheckService(config);
+    StatusCheckService service = new StatusCheckService(config, fanOutExecutor);
     assertThat(service.getCurrentStatus(), is(new SystemStatus().ok(true)));
     var status = mock(Status.class);
     service.registerStatusCheck("", status);
@@ -73,7 +78,7 @@ class StatusCheckServiceTest {
   @Test
   void getCurrentStatusStale() {
     var config = new StatusCheckConfiguration(true, 0, 0, 0);
-    StatusCheckService service = new StatusCheckService(config);
+    StatusCheckService service = new StatusCheckService(config, fanOutExecutor);
     assertThat(service.getCurrentStatus(), is(new SystemStatus().ok(false)));
   }
 }
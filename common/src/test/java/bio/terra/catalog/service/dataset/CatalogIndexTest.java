@@ -0,0 +1,157 @@
+package bio.terra.catalog.service.dataset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import bio.terra.catalog.common.StorageSystem;
+import bio.terra.catalog.config.CatalogDatabaseConfiguration;
+import bio.terra.catalog.config.CatalogIndexConfiguration;
+import bio.terra.catalog.service.dataset.exception.DatasetNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogIndexTest {
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Mock private DatasetDao datasetDao;
+
+  private CatalogIndex catalogIndex;
+
+  private static Dataset createDataset(String storageSourceId, StorageSystem storageSystem) {
+    return new Dataset(
+        new DatasetId(UUID.randomUUID()),
+        storageSourceId,
+        storageSystem,
+        objectMapper.createObjectNode(),
+        Instant.now());
+  }
+
+  private final Dataset workspaceDataset =
+      createDataset("workspace", StorageSystem.TERRA_WORKSPACE);
+  private final Dataset tdrDataset = createDataset("snapshot", StorageSystem.TERRA_DATA_REPO);
+
+  @BeforeEach
+  void beforeEach() {
+    catalogIndex =
+        new CatalogIndex(
+            datasetDao, new CatalogDatabaseConfiguration(), new CatalogIndexConfiguration(true, 1));
+  }
+
+  private void load() {
+    when(datasetDao.listAllDatasets()).thenReturn(List.of(workspaceDataset, tdrDataset));
+    catalogIndex.reload();
+  }
+
+  @Test
+  void readsGoToDatabaseUntilLoaded() {
+    when(datasetDao.retrieve(tdrDataset.id(), null)).thenReturn(tdrDataset);
+    assertThat(catalogIndex.retrieve(tdrDataset.id()), is(tdrDataset));
+  }
+
+  @Test
+  void readsAreServedFromMemory() {
+    load();
+    assertThat(catalogIndex.retrieve(tdrDataset.id()), is(tdrDataset));
+    assertThat(
+        catalogIndex.find(
+            Map.of(
+                StorageSystem.TERRA_WORKSPACE,
+                List.of("workspace", "snapshot"),
+                StorageSystem.TERRA_DATA_REPO,
+                List.of())),
+        contains(workspaceDataset));
+    assertThat(catalogIndex.listAllDatasets(), containsInAnyOrder(workspaceDataset, tdrDataset));
+    assertThat(catalogIndex.listAllDatasets(StorageSystem.TERRA_DATA_REPO), contains(tdrDataset));
+    var unknownId = new DatasetId(UUID.randomUUID());
+    assertThrows(DatasetNotFoundException.class, () -> catalogIndex.retrieve(unknownId));
+    verify(datasetDao).listAllDatasets();
+    verifyNoMoreInteractions(datasetDao);
+  }
+
+  @Test
+  void pagesAreServedFromMemory() {
+    load();
+    var ordered = Stream.of(workspaceDataset, tdrDataset).sorted(DatasetCursor.ORDER).toList();
+    assertThat(
+        catalogIndex.listAllDatasets(DatasetCursor.START, 1, null), contains(ordered.get(0)));
+    assertThat(
+        catalogIndex.listAllDatasets(DatasetCursor.after(ordered.get(0)), 1, null),
+        contains(ordered.get(1)));
+    assertThat(
+        catalogIndex.find(
+            Map.of(StorageSystem.TERRA_DATA_REPO, List.of("snapshot")),
+            DatasetCursor.after(tdrDataset),
+            1,
+            null),
+        empty());
+  }
+
+  @Test
+  void fieldsAreProjected() {
+    var metadata = objectMapper.createObjectNode().put("name", "name").put("other", "other");
+    when(datasetDao.listAllDatasets())
+        .thenReturn(List.of(workspaceDataset.withMetadata(metadata), tdrDataset));
+    catalogIndex.reload();
+    var projected = catalogIndex.retrieve(workspaceDataset.id(), Set.of("name", "missing"));
+    assertThat(projected.metadata(), is(objectMapper.createObjectNode().put("name", "name")));
+    assertThat(catalogIndex.retrieve(workspaceDataset.id()).metadata(), is(metadata));
+  }
+
+  @Test
+  void writesRereadCommittedRows() {
+    load();
+    var updated = tdrDataset.withMetadata(objectMapper.createObjectNode().put("name", "new"));
+    // Another write committed after this one, so the index holds its row instead.
+    var committed = tdrDataset.withMetadata(objectMapper.createObjectNode().put("name", "newer"));
+    when(datasetDao.retrieve(tdrDataset.id())).thenReturn(committed);
+    catalogIndex.update(updated);
+    verify(datasetDao).update(updated);
+    assertThat(catalogIndex.retrieve(tdrDataset.id()), is(committed));
+
+    when(datasetDao.retrieve(tdrDataset.id()))
+        .thenThrow(new DatasetNotFoundException("Dataset not found"));
+    catalogIndex.delete(updated);
+    verify(datasetDao).delete(updated);
+    assertThat(catalogIndex.listAllDatasets(StorageSystem.TERRA_DATA_REPO), empty());
+
+    var request = new Dataset("external", StorageSystem.EXTERNAL, objectMapper.createObjectNode());
+    var created = createDataset("external", StorageSystem.EXTERNAL);
+    when(datasetDao.upsert(request)).thenReturn(created);
+    when(datasetDao.retrieve(created.id())).thenReturn(created);
+    catalogIndex.upsert(request);
+    assertThat(
+        catalogIndex.find(Map.of(StorageSystem.EXTERNAL, List.of("external"))), contains(created));
+  }
+
+  @Test
+  void notificationsRereadChangedRows() {
+    load();
+    var updated = workspaceDataset.withMetadata(objectMapper.createObjectNode().put("name", "new"));
+    when(datasetDao.retrieve(workspaceDataset.id())).thenReturn(updated);
+    catalogIndex.refresh(workspaceDataset.id());
+    assertThat(catalogIndex.retrieve(workspaceDataset.id()), is(updated));
+
+    when(datasetDao.retrieve(tdrDataset.id()))
+        .thenThrow(new DatasetNotFoundException("Dataset not found"));
+    catalogIndex.refresh(tdrDataset.id());
+    assertThat(catalogIndex.listAllDatasets(), contains(updated));
+  }
+}
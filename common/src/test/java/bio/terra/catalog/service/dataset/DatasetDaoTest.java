@@ -3,6 +3,7 @@ package bio.terra.catalog.service.dataset;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -15,10 +16,13 @@ import bio.terra.catalog.service.dataset.exception.DatasetNotFoundException;
 import bio.terra.common.exception.InternalServerErrorException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -133,6 +137,89 @@ class DatasetDaoTest {
     assertThat(datasets, contains(d1, d2, d3));
   }
 
+  @Test
+  void streamDatasets() throws Exception {
+    var metadata =
+        METADATA.deepCopy().put("id", "stored id").put("phsId", "phs000").put("accessLevel", "x");
+    Dataset d1 =
+        upsertDataset(UUID.randomUUID().toString(), StorageSystem.TERRA_DATA_REPO, metadata);
+    upsertDataset(UUID.randomUUID().toString(), StorageSystem.TERRA_DATA_REPO);
+
+    var datasets = new ArrayList<RawDataset>();
+    datasetDao.streamDatasets(
+        Map.of(StorageSystem.TERRA_DATA_REPO, List.of(d1.storageSourceId())), datasets::add);
+    assertThat(datasets, hasSize(1));
+    var dataset = datasets.get(0);
+    assertThat(dataset.id(), is(d1.id()));
+    // The fields that are computed for a response are removed from the metadata.
+    assertThat(
+        objectMapper.readTree(dataset.metadata()), is(objectMapper.readTree(METADATA.toString())));
+    assertThat(dataset.phsId(), is("\"phs000\""));
+    assertFalse(dataset.hasRequestAccessUrl());
+
+    datasets.clear();
+    datasetDao.streamDatasets(null, datasets::add);
+    assertThat(datasets.stream().map(RawDataset::id).toList(), hasItem(d1.id()));
+  }
+
+  @Test
+  void findManyIds() {
+    Dataset dataset = upsertDataset(UUID.randomUUID().toString(), StorageSystem.TERRA_WORKSPACE);
+    List<String> ids =
+        Stream.concat(
+                Stream.generate(() -> UUID.randomUUID().toString()).limit(50_000),
+                Stream.of(dataset.storageSourceId()))
+            .toList();
+    assertThat(datasetDao.find(Map.of(StorageSystem.TERRA_WORKSPACE, ids)), contains(dataset));
+  }
+
+  @Test
+  void findPages() {
+    var datasets =
+        Stream.generate(
+                () -> upsertDataset(UUID.randomUUID().toString(), StorageSystem.TERRA_DATA_REPO))
+            .limit(3)
+            .sorted(DatasetCursor.ORDER)
+            .toList();
+    Map<StorageSystem, Collection<String>> systemsAndIds =
+        Map.of(
+            StorageSystem.TERRA_DATA_REPO,
+            datasets.stream().map(Dataset::storageSourceId).toList());
+    assertThat(
+        datasetDao.find(systemsAndIds, DatasetCursor.START, 2, null),
+        contains(datasets.get(0), datasets.get(1)));
+    assertThat(
+        datasetDao.find(systemsAndIds, DatasetCursor.after(datasets.get(1)), 2, null),
+        contains(datasets.get(2)));
+  }
+
+  @Test
+  void listAllDatasetsPages() {
+    upsertDataset(UUID.randomUUID().toString(), StorageSystem.TERRA_DATA_REPO);
+    upsertDataset(UUID.randomUUID().toString(), StorageSystem.EXTERNAL);
+    var all = datasetDao.listAllDatasets(DatasetCursor.START, Integer.MAX_VALUE, null);
+    assertThat(all, is(all.stream().sorted(DatasetCursor.ORDER).toList()));
+    assertThat(
+        datasetDao.listAllDatasets(DatasetCursor.after(all.get(0)), 1, null),
+        contains(all.get(1)));
+  }
+
+  @Test
+  void projectFields() {
+    var metadata = objectMapper.createObjectNode().put("name", "name").put("other", "other");
+    Dataset dataset =
+        upsertDataset(UUID.randomUUID().toString(), StorageSystem.TERRA_WORKSPACE, metadata);
+    var fields = Set.of("name", "missing");
+    var projected = dataset.withMetadata(objectMapper.createObjectNode().put("name", "name"));
+    assertThat(datasetDao.retrieve(dataset.id(), fields), is(projected));
+    assertThat(
+        datasetDao.find(
+            Map.of(StorageSystem.TERRA_WORKSPACE, List.of(dataset.storageSourceId())), fields),
+        contains(projected));
+    assertThat(datasetDao.listAllDatasets(fields), hasItem(projected));
+    assertThat(datasetDao.retrieve(dataset.id(), Set.of()).metadata().isEmpty(), is(true));
+  }
+
   @Test
   void findNoIds() {
     assertThat(datasetDao.find(Map.of(StorageSystem.EXTERNAL, List.of())), empty());
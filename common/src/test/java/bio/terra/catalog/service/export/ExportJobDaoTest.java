@@ -0,0 +1,96 @@
+package bio.terra.catalog.service.export;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.catalog.common.StorageSystem;
+import bio.terra.catalog.service.dataset.Dataset;
+import bio.terra.catalog.service.dataset.DatasetDao;
+import bio.terra.catalog.service.export.exception.ExportJobNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Transactional
+class ExportJobDaoTest {
+
+  @Autowired private ExportJobDao exportJobDao;
+  @Autowired private DatasetDao datasetDao;
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final String REQUESTER = "requester";
+
+  private Dataset upsertDataset() {
+    return datasetDao.upsert(
+        new Dataset(
+            UUID.randomUUID().toString(),
+            StorageSystem.TERRA_WORKSPACE,
+            objectMapper.createObjectNode()));
+  }
+
+  @Test
+  void testExportJobOperations() {
+    var dataset = upsertDataset();
+    var workspaceId = UUID.randomUUID();
+    var job = exportJobDao.create(dataset.id(), workspaceId, REQUESTER);
+    assertThat(job.datasetId(), is(dataset.id()));
+    assertThat(job.workspaceId(), is(workspaceId));
+    assertThat(job.requester(), is(REQUESTER));
+    assertThat(job.status(), is(ExportJobStatus.QUEUED));
+    assertThat(exportJobDao.retrieve(job.id()), is(job));
+
+    exportJobDao.updateStatus(job.id(), ExportJobStatus.FAILED, "failed");
+    var failed = exportJobDao.retrieve(job.id());
+    assertThat(failed.status(), is(ExportJobStatus.FAILED));
+    assertThat(failed.errorMessage(), is("failed"));
+  }
+
+  @Test
+  void testHandleNonExistentJobs() {
+    UUID id = UUID.randomUUID();
+    assertThrows(ExportJobNotFoundException.class, () -> exportJobDao.retrieve(id));
+    assertThrows(
+        ExportJobNotFoundException.class,
+        () -> exportJobDao.updateStatus(id, ExportJobStatus.RUNNING, null));
+  }
+
+  @Test
+  void testFailStale() {
+    var dataset = upsertDataset();
+    var running = exportJobDao.create(dataset.id(), UUID.randomUUID(), REQUESTER);
+    exportJobDao.updateStatus(running.id(), ExportJobStatus.RUNNING, null);
+    var succeeded = exportJobDao.create(dataset.id(), UUID.randomUUID(), REQUESTER);
+    exportJobDao.updateStatus(succeeded.id(), ExportJobStatus.SUCCEEDED, null);
+    exportJobDao.touch(List.of(running.id(), succeeded.id()));
+
+    // The jobs were updated after this time, so they aren't stale.
+    exportJobDao.failStale(Instant.now().minusSeconds(60), "interrupted");
+    assertThat(exportJobDao.retrieve(running.id()).status(), is(ExportJobStatus.RUNNING));
+
+    // Only unfinished jobs can be interrupted.
+    exportJobDao.failStale(Instant.now().plusSeconds(60), "interrupted");
+    var interrupted = exportJobDao.retrieve(running.id());
+    assertThat(interrupted.status(), is(ExportJobStatus.FAILED));
+    assertThat(interrupted.errorMessage(), is("interrupted"));
+    var finished = exportJobDao.retrieve(succeeded.id());
+    assertThat(finished.status(), is(ExportJobStatus.SUCCEEDED));
+    assertThat(finished.errorMessage(), nullValue());
+  }
+
+  @Test
+  void testJobsAreDeletedWithDataset() {
+    var dataset = upsertDataset();
+    var job = exportJobDao.create(dataset.id(), UUID.randomUUID(), REQUESTER);
+    datasetDao.delete(dataset);
+    UUID id = job.id();
+    assertThrows(ExportJobNotFoundException.class, () -> exportJobDao.retrieve(id));
+  }
+}
@@ -0,0 +1,111 @@
+package scripts.testscripts;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import bio.terra.catalog.api.DatasetsApi;
+import bio.terra.catalog.client.ApiException;
+import bio.terra.catalog.model.CreateDatasetRequest;
+import bio.terra.catalog.model.StorageSystem;
+import bio.terra.testrunner.runner.TestScript;
+import bio.terra.testrunner.runner.config.TestUserSpecification;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scripts.client.CatalogClient;
+
+/**
+ * Measures the latency of the catalog's retrieve and find queries as they're repeated.
+ *
+ * <p>The driver prepares a statement on the server once it has been executed {@code
+ * catalog.catalog-database.prepareThreshold} times on a connection, after which its plan is
+ * reused. The first calls on each path are reported separately from the rest, so comparing runs
+ * with different thresholds shows the effect of plan reuse.
+ */
+public class DatasetLookupPerformance extends TestScript {
+
+  private static final Logger log = LoggerFactory.getLogger(DatasetLookupPerformance.class);
+  private static final String ADMIN_EMAIL = "datacatalogadmin@test.firecloud.org";
+  private static final String USER_EMAIL = "datacataloguser@test.firecloud.org";
+  private static final int DATASET_COUNT = 50;
+  private static final int ITERATIONS = 200;
+  // Calls made before the statements are likely to be prepared on every pooled connection.
+  private static final int WARMUP_ITERATIONS = 20;
+
+  private TestUserSpecification regularUser;
+  private DatasetsApi adminDatasetsApi;
+  private final List<UUID> datasetIds = new ArrayList<>();
+
+  @Override
+  public void setup(List<TestUserSpecification> testUsers) throws Exception {
+    TestUserSpecification adminUser = null;
+    for (TestUserSpecification testUser : testUsers) {
+      if (testUser.userEmail.equals(ADMIN_EMAIL)) {
+        adminUser = testUser;
+      }
+      if (testUser.userEmail.equals(USER_EMAIL)) {
+        regularUser = testUser;
+      }
+    }
+    assertNotNull(adminUser);
+    assertNotNull(regularUser);
+
+    // External datasets are visible to every user, so the regular user's listing finds them.
+    adminDatasetsApi = new DatasetsApi(new CatalogClient(server, adminUser));
+    for (int i = 0; i < DATASET_COUNT; i++) {
+      var request =
+          new CreateDatasetRequest()
+              .catalogEntry(DatasetOperations.createMetadata("lookup-performance-" + i))
+              .storageSourceId(UUID.randomUUID().toString())
+              .storageSystem(StorageSystem.EXT);
+      datasetIds.add(adminDatasetsApi.upsertDataset(request).getId());
+    }
+  }
+
+  @Override
+  public void userJourney(TestUserSpecification testUser) throws Exception {
+    // A regular user's listing is a find of the datasets they can access; an admin's would list
+    // all datasets instead.
+    var datasetsApi = new DatasetsApi(new CatalogClient(server, regularUser));
+
+    long[] retrieveNanos = new long[ITERATIONS];
+    long[] findNanos = new long[ITERATIONS];
+    for (int i = 0; i < ITERATIONS; i++) {
+      var datasetId = datasetIds.get(i % datasetIds.size());
+      long start = System.nanoTime();
+      datasetsApi.getDataset(datasetId, null);
+      retrieveNanos[i] = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      datasetsApi.listDatasets(null, null, null);
+      findNanos[i] = System.nanoTime() - start;
+    }
+    report("retrieve", retrieveNanos);
+    report("find", findNanos);
+  }
+
+  private static void report(String path, long[] nanos) {
+    log.info(
+        "{}: median {} ms for the first {} calls, {} ms for the remaining {}",
+        path,
+        medianMillis(Arrays.copyOfRange(nanos, 0, WARMUP_ITERATIONS)),
+        WARMUP_ITERATIONS,
+        medianMillis(Arrays.copyOfRange(nanos, WARMUP_ITERATIONS, nanos.length)),
+        nanos.length - WARMUP_ITERATIONS);
+  }
+
+  private static double medianMillis(long[] nanos) {
+    Arrays.sort(nanos);
+    return nanos[nanos.length / 2] / 1_000_000.0;
+  }
+
+  @Override
+  public void cleanup(List<TestUserSpecification> testUsers) throws ApiException {
+    for (UUID datasetId : datasetIds) {
+      adminDatasetsApi.deleteDataset(datasetId);
+    }
+    log.info("deleted {} datasets", datasetIds.size());
+  }
+}
@@ -17,6 +17,8 @@ import bio.terra.catalog.client.ApiException;
 import bio.terra.catalog.model.ColumnModel;
 import bio.terra.catalog.model.CreateDatasetRequest;
 import bio.terra.catalog.model.DatasetExportRequest;
+import bio.terra.catalog.model.ExportJobResponse;
+import bio.terra.catalog.model.ExportJobStatus;
 import bio.terra.catalog.model.StorageSystem;
 import bio.terra.catalog.model.TableMetadata;
 import bio.terra.datarepo.model.DatasetModel;
@@ -26,6 +28,7 @@ import bio.terra.testrunner.runner.config.TestUserSpecification;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.client.http.HttpStatusCodes;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
@@ -49,6 +52,8 @@ public class DatasetOperations extends TestScript {
 
   private static final Logger log = LoggerFactory.getLogger(DatasetOperations.class);
   private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final Duration EXPORT_TIMEOUT = Duration.ofMinutes(5);
+  private static final Duration EXPORT_POLL_INTERVAL = Duration.ofSeconds(2);
 
   // TDR APIs
   private SnapshotsApi snapshotsApi;
@@ -112,9 +117,23 @@ public class DatasetOperations extends TestScript {
     exportUserJourney(StorageSystem.WKS, workspaceSource, workspaceDest);
   }
 
+  private ExportJobResponse waitForExport(ExportJobResponse job)
+      throws ApiException, InterruptedException {
+    var deadline = Instant.now().plus(EXPORT_TIMEOUT);
+    while (job.getStatus() == ExportJobStatus.QUEUED
+        || job.getStatus() == ExportJobStatus.RUNNING) {
+      if (Instant.now().isAfter(deadline)) {
+        fail("Export job %s didn't finish in %s".formatted(job.getId(), EXPORT_TIMEOUT));
+      }
+      Thread.sleep(EXPORT_POLL_INTERVAL.toMillis());
+      job = datasetsApi.getExportJob(job.getDatasetId(), job.getId());
+    }
+    return job;
+  }
+
   private void exportUserJourney(
       StorageSystem storageSystem, WorkspaceDetails workspaceSource, WorkspaceDetails workspaceDest)
-      throws ApiException, bio.terra.rawls.client.ApiException {
+      throws ApiException, bio.terra.rawls.client.ApiException, InterruptedException {
     // Create workspace dataset
     var request =
         new CreateDatasetRequest()
@@ -123,9 +142,12 @@ public class DatasetOperations extends TestScript {
             .storageSystem(storageSystem);
     datasetId = datasetsApi.upsertDataset(request).getId();
 
-    // Export workspace dataset to workspace
+    // Export workspace dataset to workspace, and wait for the export to finish
     var workspaceId = UUID.fromString(workspaceDest.getWorkspaceId());
-    datasetsApi.exportDataset(datasetId, new DatasetExportRequest().workspaceId(workspaceId));
+    var job =
+        datasetsApi.exportDataset(datasetId, new DatasetExportRequest().workspaceId(workspaceId));
+    job = waitForExport(job);
+    assertThat(job.getMessage(), job.getStatus(), is(ExportJobStatus.SUCCEEDED));
 
     // Extract workspace entity names
     Set<String> entitiesSource = rawlsClient.getWorkspaceEntities(workspaceSource);
@@ -155,7 +177,7 @@ public class DatasetOperations extends TestScript {
         containsInAnyOrder(
             new TableMetadata().name("sample").hasData(true),
             new TableMetadata().name("participant").hasData(true)));
-    var sampleTable = datasetsApi.getDatasetPreviewTable(datasetId, "sample");
+    var sampleTable = datasetsApi.getDatasetPreviewTable(datasetId, "sample", null, null, null);
     assertThat(
         sampleTable.getColumns(),
         containsInAnyOrder(
@@ -199,23 +221,29 @@ public class DatasetOperations extends TestScript {
     log.info("created dataset " + datasetId);
 
     // Retrieve the entry
-    JsonNode datasetResponse = objectMapper.readTree(datasetsApi.getDataset(datasetId));
+    JsonNode datasetResponse = objectMapper.readTree(datasetsApi.getDataset(datasetId, null));
     // We do not expect phsId or requestAccessURL here because our getDataset doesn't return storage
     // system information
     assertDatasetValues(List.of("dct:title", "id"), datasetResponse, "crud", storageSystem);
     assertThat(client.getStatusCode(), is(HttpStatusCodes.STATUS_CODE_OK));
 
     // Retrieve all datasets
-    var datasets = datasetsApi.listDatasets();
+    var datasets = datasetsApi.listDatasets(null, null, null);
     assertThat(client.getStatusCode(), is(HttpStatusCodes.STATUS_CODE_OK));
     resultHasDatasetWithRoles(datasets.getResult(), storageSystem);
 
+    // Retrieve the first page of datasets
+    var page = datasetsApi.listDatasets(1, null, null);
+    assertThat(client.getStatusCode(), is(HttpStatusCodes.STATUS_CODE_OK));
+    assertThat(page.getResult(), hasSize(1));
+    assertThat(page.getNext() == null, is(datasets.getResult().size() == 1));
+
     // Modify the entry
     datasetsApi.updateDataset(createMetadata("crud2"), datasetId);
     assertThat(client.getStatusCode(), is(HttpStatusCodes.STATUS_CODE_NO_CONTENT));
 
     // Verify modify success
-    JsonNode datasetResponseTwo = objectMapper.readTree(datasetsApi.getDataset(datasetId));
+    JsonNode datasetResponseTwo = objectMapper.readTree(datasetsApi.getDataset(datasetId, null));
     assertDatasetValues(List.of("dct:title", "id"), datasetResponseTwo, "crud2", storageSystem);
     assertThat(client.getStatusCode(), is(HttpStatusCodes.STATUS_CODE_OK));
 
@@ -224,7 +252,8 @@ public class DatasetOperations extends TestScript {
     assertThat(client.getStatusCode(), is(HttpStatusCodes.STATUS_CODE_NO_CONTENT));
 
     // Verify delete success.
-    var apiException = assertThrows(ApiException.class, () -> datasetsApi.getDataset(datasetId));
+    var apiException =
+        assertThrows(ApiException.class, () -> datasetsApi.getDataset(datasetId, null));
     assertThat(apiException.getCode(), is(HttpStatusCodes.STATUS_CODE_NOT_FOUND));
     assertThat(apiException.getResponseBody(), containsString(datasetId.toString()));
     datasetId = null;
@@ -126,7 +126,7 @@ public class DatasetPermissionOperations extends TestScript {
         userDatasetsApi.getApiClient().getStatusCode(), is(HttpStatusCodes.STATUS_CODE_FORBIDDEN));
 
     // verify the user can still access data though
-    userDatasetsApi.getDataset(adminDatasetId);
+    userDatasetsApi.getDataset(adminDatasetId, null);
     assertThat(userDatasetsApi.getApiClient().getStatusCode(), is(HttpStatusCodes.STATUS_CODE_OK));
   }
 
@@ -138,7 +138,7 @@ public class DatasetPermissionOperations extends TestScript {
   }
 
   private void assertNoPermissionsOnDataset(UUID adminDatasetId, int expectedStatusCode) {
-    assertThrows(ApiException.class, () -> userDatasetsApi.getDataset(adminDatasetId));
+    assertThrows(ApiException.class, () -> userDatasetsApi.getDataset(adminDatasetId, null));
     assertThat(userDatasetsApi.getApiClient().getStatusCode(), is(expectedStatusCode));
   }
 
@@ -180,7 +180,7 @@ public class DatasetPermissionOperations extends TestScript {
     var datasetId = adminCreateDataset(request);
 
     // Verify admin can get the dataset metadata even when they don't have access to the snapshot.
-    adminDatasetsApi.getDataset(datasetId);
+    adminDatasetsApi.getDataset(datasetId, null);
 
     // But admin cannot access the underlying preview data
     assertThrows(Exception.class, () -> adminDatasetsApi.listDatasetPreviewTables(datasetId));
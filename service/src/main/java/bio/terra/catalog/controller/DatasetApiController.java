@@ -8,10 +8,12 @@ import bio.terra.catalog.model.DatasetExportRequest;
 import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.DatasetPreviewTablesResponse;
 import bio.terra.catalog.model.DatasetsListResponse;
+import bio.terra.catalog.model.ExportJobResponse;
 import bio.terra.catalog.service.DatasetService;
 import bio.terra.catalog.service.dataset.DatasetId;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,10 +33,11 @@ public class DatasetApiController implements DatasetsApi {
   }
 
   @Override
-  public ResponseEntity<DatasetsListResponse> listDatasets() {
+  public ResponseEntity<DatasetsListResponse> listDatasets(
+      Integer limit, String cursor, List<String> fields) {
     return ResponseEntity.ok()
         .cacheControl(CacheControl.noStore())
-        .body(datasetService.listDatasets());
+        .body(datasetService.listDatasets(limit, cursor, fields));
   }
 
   @Override
@@ -44,10 +47,10 @@ public class DatasetApiController implements DatasetsApi {
   }
 
   @Override
-  public ResponseEntity<String> getDataset(UUID id) {
+  public ResponseEntity<String> getDataset(UUID id, List<String> fields) {
     return ResponseEntity.ok()
         .cacheControl(CacheControl.noStore())
-        .body(datasetService.getMetadata(new DatasetId(id)));
+        .body(datasetService.getMetadata(new DatasetId(id), fields));
   }
 
   @Override
@@ -75,15 +78,25 @@ public class DatasetApiController implements DatasetsApi {
   }
 
   @Override
-  public ResponseEntity<DatasetPreviewTable> getDatasetPreviewTable(UUID id, String tableName) {
+  public ResponseEntity<DatasetPreviewTable> getDatasetPreviewTable(
+      UUID id, String tableName, Integer offset, Integer limit, List<String> columns) {
     return ResponseEntity.ok()
         .cacheControl(CacheControl.noStore())
-        .body(datasetService.getDatasetPreview(new DatasetId(id), tableName));
+        .body(
+            datasetService.getDatasetPreview(new DatasetId(id), tableName, offset, limit, columns));
   }
 
   @Override
-  public ResponseEntity<Void> exportDataset(UUID datasetId, DatasetExportRequest body) {
-    datasetService.exportDataset(new DatasetId(datasetId), body.getWorkspaceId());
-    return ResponseEntity.noContent().build();
+  public ResponseEntity<ExportJobResponse> exportDataset(
+      UUID datasetId, DatasetExportRequest body) {
+    return ResponseEntity.accepted()
+        .body(datasetService.exportDataset(new DatasetId(datasetId), body.getWorkspaceId()));
+  }
+
+  @Override
+  public ResponseEntity<ExportJobResponse> getExportJob(UUID id, UUID jobId) {
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noStore())
+        .body(datasetService.getExportJob(new DatasetId(id), jobId));
   }
 }
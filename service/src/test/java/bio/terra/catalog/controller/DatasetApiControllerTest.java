@@ -18,10 +18,15 @@ import bio.terra.catalog.model.DatasetExportRequest;
 import bio.terra.catalog.model.DatasetPreviewTable;
 import bio.terra.catalog.model.DatasetPreviewTablesResponse;
 import bio.terra.catalog.model.DatasetsListResponse;
+import bio.terra.catalog.model.ExportJobResponse;
+import bio.terra.catalog.model.ExportJobStatus;
 import bio.terra.catalog.model.TableMetadata;
 import bio.terra.catalog.service.DatasetService;
+import bio.terra.catalog.service.StreamingDatasetsListResponse;
 import bio.terra.catalog.service.dataset.DatasetId;
 import bio.terra.catalog.service.dataset.exception.DatasetNotFoundException;
+import bio.terra.catalog.service.export.exception.ExportJobNotFoundException;
+import bio.terra.common.exception.BadRequestException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -50,6 +55,7 @@ class DatasetApiControllerTest {
   private static final String PREVIEW_TABLES_API_TABLE_NAME = PREVIEW_TABLES_API + "/{tableName}";
 
   private static final String EXPORT_TABLES_API = API_ID + "/export";
+  private static final String EXPORT_JOB_API = EXPORT_TABLES_API + "/{jobId}";
 
   @Autowired private MockMvc mockMvc;
 
@@ -66,7 +72,7 @@ class DatasetApiControllerTest {
     ObjectNode node = objectMapper.createObjectNode();
     node.put("id", "id");
     response.addResultItem(node);
-    when(datasetService.listDatasets()).thenReturn(response);
+    when(datasetService.listDatasets(null, null, null)).thenReturn(response);
     mockMvc
         .perform(get(API))
         .andExpect(status().isOk())
@@ -78,7 +84,7 @@ class DatasetApiControllerTest {
   @Test
   void emptyListDatasets() throws Exception {
     DatasetsListResponse response = new DatasetsListResponse();
-    when(datasetService.listDatasets()).thenReturn(response);
+    when(datasetService.listDatasets(null, null, null)).thenReturn(response);
     mockMvc
         .perform(get(API))
         .andExpect(status().isOk())
@@ -87,6 +93,30 @@ class DatasetApiControllerTest {
         .andExpect(jsonPath("$.result").isArray());
   }
 
+  @Test
+  void listDatasetsStreaming() throws Exception {
+    var response =
+        new StreamingDatasetsListResponse(
+            generator -> generator.writeRawValue("{\"name\":\"name\",\"id\":\"id\"}"));
+    when(datasetService.listDatasets(null, null, null)).thenReturn(response);
+    mockMvc
+        .perform(get(API))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.result[0].name").value("name"))
+        .andExpect(jsonPath("$.result[0].id").value("id"));
+  }
+
+  @Test
+  void listDatasetsPage() throws Exception {
+    DatasetsListResponse response = new DatasetsListResponse().next("next");
+    when(datasetService.listDatasets(10, "cursor", null)).thenReturn(response);
+    mockMvc
+        .perform(get(API).queryParam("limit", "10").queryParam("cursor", "cursor"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.next").value("next"));
+  }
+
   @Test
   void deleteDataset() throws Exception {
     var datasetId = new DatasetId(UUID.randomUUID());
@@ -101,13 +131,22 @@ class DatasetApiControllerTest {
         .perform(get(API_ID, datasetId.uuid()))
         .andExpect(status().isOk())
         .andExpect(header().string("Cache-Control", "no-store"));
-    verify(datasetService).getMetadata(datasetId);
+    verify(datasetService).getMetadata(datasetId, null);
+  }
+
+  @Test
+  void getDatasetFields() throws Exception {
+    var datasetId = new DatasetId(UUID.randomUUID());
+    mockMvc
+        .perform(get(API_ID, datasetId.uuid()).queryParam("fields", "dct:title,counts"))
+        .andExpect(status().isOk());
+    verify(datasetService).getMetadata(datasetId, List.of("dct:title", "counts"));
   }
 
   @Test
   void getDatasetNoRecordFound() throws Exception {
     var datasetId = new DatasetId(UUID.randomUUID());
-    when(datasetService.getMetadata(datasetId)).thenThrow(new DatasetNotFoundException(""));
+    when(datasetService.getMetadata(datasetId, null)).thenThrow(new DatasetNotFoundException(""));
     mockMvc.perform(get(API_ID, datasetId.uuid())).andExpect(status().isNotFound());
   }
 
@@ -174,7 +213,8 @@ class DatasetApiControllerTest {
         new DatasetPreviewTable()
             .columns(List.of(new ColumnModel().name(columnName)))
             .rows(List.of());
-    when(datasetService.getDatasetPreview(datasetId, tableName)).thenReturn(response);
+    when(datasetService.getDatasetPreview(datasetId, tableName, null, null, null))
+        .thenReturn(response);
     mockMvc
         .perform(get(PREVIEW_TABLES_API_TABLE_NAME, datasetId.uuid(), tableName))
         .andExpect(status().isOk())
@@ -183,10 +223,20 @@ class DatasetApiControllerTest {
         .andExpect(jsonPath("$.columns[0].name").value(columnName));
   }
 
+  private static ExportJobResponse exportJob(DatasetId datasetId, UUID workspaceId) {
+    return new ExportJobResponse()
+        .id(UUID.randomUUID())
+        .datasetId(datasetId.uuid())
+        .workspaceId(workspaceId)
+        .status(ExportJobStatus.QUEUED);
+  }
+
   @Test
   void exportDataset() throws Exception {
     var datasetId = new DatasetId(UUID.randomUUID());
     var workspaceId = UUID.randomUUID();
+    var job = exportJob(datasetId, workspaceId);
+    when(datasetService.exportDataset(datasetId, workspaceId)).thenReturn(job);
     var request = new DatasetExportRequest().workspaceId(workspaceId);
     var postBody = objectMapper.writeValueAsString(request);
     mockMvc
@@ -194,7 +244,45 @@ class DatasetApiControllerTest {
             post(EXPORT_TABLES_API, datasetId.uuid())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(postBody))
-        .andExpect(status().is2xxSuccessful());
-    verify(datasetService).exportDataset(datasetId, workspaceId);
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.id").value(job.getId().toString()))
+        .andExpect(jsonPath("$.status").value("QUEUED"));
+  }
+
+  @Test
+  void exportDatasetNotSupported() throws Exception {
+    var datasetId = new DatasetId(UUID.randomUUID());
+    var workspaceId = UUID.randomUUID();
+    when(datasetService.exportDataset(datasetId, workspaceId))
+        .thenThrow(new BadRequestException("not supported"));
+    var postBody =
+        objectMapper.writeValueAsString(new DatasetExportRequest().workspaceId(workspaceId));
+    mockMvc
+        .perform(
+            post(EXPORT_TABLES_API, datasetId.uuid())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(postBody))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void getExportJob() throws Exception {
+    var datasetId = new DatasetId(UUID.randomUUID());
+    var job = exportJob(datasetId, UUID.randomUUID()).status(ExportJobStatus.SUCCEEDED);
+    when(datasetService.getExportJob(datasetId, job.getId())).thenReturn(job);
+    mockMvc
+        .perform(get(EXPORT_JOB_API, datasetId.uuid(), job.getId()))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "no-store"))
+        .andExpect(jsonPath("$.status").value("SUCCEEDED"));
+  }
+
+  @Test
+  void getExportJobNotFound() throws Exception {
+    var datasetId = new DatasetId(UUID.randomUUID());
+    var jobId = UUID.randomUUID();
+    when(datasetService.getExportJob(datasetId, jobId))
+        .thenThrow(new ExportJobNotFoundException("not found"));
+    mockMvc.perform(get(EXPORT_JOB_API, datasetId.uuid(), jobId)).andExpect(status().isNotFound());
   }
 }